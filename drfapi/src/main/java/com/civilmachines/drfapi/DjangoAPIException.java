@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.support.annotation.Nullable;
+
+import org.json.JSONObject;
+
+/**
+ * Exception raised by {@link DjangoRequestFuture} when a request fails.
+ *
+ * {@link #getType()} tells which {@link DjangoErrorListener} callback the error would have
+ * been dispatched to, so blocking callers can handle errors the same way listeners do.
+ */
+public class DjangoAPIException extends Exception {
+
+    /**
+     * Categories of error, one for every callback of {@link DjangoErrorListener}
+     */
+    public enum Type {
+        NETWORK,
+        AUTH_FAILURE,
+        TIMEOUT,
+        NO_CONNECTION,
+        PARSE,
+        METHOD_NOT_ALLOWED,
+        NOT_FOUND,
+        BAD_REQUEST,
+        FORBIDDEN,
+        UNPROCESSABLE_ENTITY,
+        UNSUPPORTED_MEDIA_TYPE,
+        NON_JSON,
+        DEFAULT_JSON,
+        DEFAULT_HTML,
+        SERVER,
+        DEFAULT
+    }
+
+    private final Type type;
+    private final JSONObject response;
+
+    /**
+     * @param type category of error
+     * @param message message or raw body passed to the {@link DjangoErrorListener} callback
+     */
+    public DjangoAPIException(Type type, @Nullable String message) {
+        super(message);
+        this.type = type;
+        this.response = null;
+    }
+
+    /**
+     * @param type category of error
+     * @param response raw JSONObject passed to the {@link DjangoErrorListener} callback
+     */
+    public DjangoAPIException(Type type, JSONObject response) {
+        super(response.toString());
+        this.type = type;
+        this.response = response;
+    }
+
+    /**
+     * @return category of error
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return raw JSONObject sent from server for field errors (such as
+     *         {@code {"field": ["message"], ...}}), null when error only has a message
+     */
+    @Nullable
+    public JSONObject getResponse() {
+        return response;
+    }
+}
@@ -21,12 +21,16 @@ import android.support.annotation.Nullable;
 
 import com.android.volley.NetworkResponse;
 import com.android.volley.Response;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
 import com.android.volley.toolbox.JsonRequest;
 
 import org.json.JSONObject;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Base class for creating Django REST Framework based request class
@@ -40,12 +44,67 @@ import java.util.Map;
 public abstract class DjangoBaseRequest<T> extends JsonRequest<T> {
 
     // Declare and define extra variable that will be used while creating a request.
-    private Context cont;
+    // Application context only, so that a running request never keeps an Activity alive.
+    private final Context cont;
+
+    private Priority priority = Priority.NORMAL;
 
     // Change these static variable to define how token is stored in Android app and sent on server
     public static String keyAuthorizationHeader = "Authorization";
     public static String keyTokenPrefix = "Bearer ";
 
+    // Session whose token is sent, fixed once the request is created unless set explicitly
+    private volatile DjangoSession session;
+
+    // Headers sent in addition to Content-Type and token
+    private final Map<String, String> extraHeaders = new HashMap<>();
+
+    // Observers notified after the listener has received the result
+    private final List<ResultObserver<T>> observers = new CopyOnWriteArrayList<>();
+
+    // Listeners notified when this request is cancelled, from wherever cancel() is called
+    private final List<CancelListener> cancelListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Receives the outcome of a request after its own listener has been invoked.
+     * Used by classes such as {@link DjangoRequestGroup} that combine several requests.
+     *
+     * @param <T> specifies the format in which response will come
+     */
+    public interface ResultObserver<T> {
+
+        /**
+         * Called on the delivery thread after the response listener.
+         *
+         * @param request the request that finished
+         * @param response parsed response
+         */
+        void onResult(DjangoBaseRequest<T> request, T response);
+
+        /**
+         * Called on the delivery thread after the error listener.
+         *
+         * @param request the request that failed
+         * @param error error raised by Volley
+         */
+        void onError(DjangoBaseRequest<T> request, VolleyError error);
+    }
+
+    /**
+     * Learns that a request has been cancelled. Volley delivers nothing to a cancelled
+     * request, and doesn't finish one that is cancelled before it reaches a queue, so this
+     * is the only notice callers waiting on it get.
+     */
+    public interface CancelListener {
+
+        /**
+         * Called once, on the thread that cancelled the request.
+         *
+         * @param request the request that has been cancelled
+         */
+        void onCancel(DjangoBaseRequest<?> request);
+    }
+
     /**
      * Base request for Django REST Framework based APIs.
      * Adds Authorization header, if JWT token is present in the system.
@@ -66,29 +125,176 @@ public abstract class DjangoBaseRequest<T> extends JsonRequest<T> {
                              @Nullable DjangoErrorListener errorListener,
                              Context context) {
         super(method, url, jsonRequest, listener, errorListener);
-        this.cont = context;
+        Context appContext = context.getApplicationContext();
+        this.cont = appContext != null ? appContext : context;
+        this.session = DjangoSession.getCurrent();
+
+        DjangoNetworkQuality quality = DjangoNetworkQuality.getInstance();
+        if (quality.isAdaptiveTimeouts())
+            setRetryPolicy(quality.newRetryPolicy(method));
+    }
+
+    /**
+     * Attaches a session to this request, in place of the one that was current when the
+     * request was created. Must be called before the request is added to a queue.
+     *
+     * @param session session whose token is sent, null to use {@link UserSharedPreferenceAdapter}
+     */
+    public void setSession(@Nullable DjangoSession session) {
+        this.session = session;
+    }
+
+    /**
+     * @return session whose token is sent with this request, null if
+     *         {@link UserSharedPreferenceAdapter} is used
+     */
+    @Nullable
+    public DjangoSession getSession() {
+        return session;
+    }
+
+    /**
+     * Sets the priority with which Volley and {@link DjangoRequestScheduler} dispatch this
+     * request, e.g. HIGH for what the user is waiting on and LOW for prefetch or telemetry.
+     * Must be called before the request is added to a queue.
+     *
+     * @param priority priority of this request
+     */
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+    }
+
+    @Override
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Adds a header to this request, such as If-Match. Must be called before the request
+     * is added to a queue.
+     *
+     * @param name name of header
+     * @param value value of header
+     */
+    public void addHeader(String name, String value) {
+        synchronized (extraHeaders) {
+            extraHeaders.put(name, value);
+        }
+    }
+
+    /**
+     * @return name of header that carries the token of this request
+     */
+    String getAuthorizationHeaderName() {
+        DjangoSession session = this.session;
+        return session != null ? session.getAuthorizationHeader() : keyAuthorizationHeader;
     }
 
     @Override
     abstract protected Response<T> parseNetworkResponse(NetworkResponse response);
 
+    /**
+     * Volley doesn't check for cancellation between download and parse. Subclasses call this
+     * first in parseNetworkResponse, so a request cancelled while downloading, e.g. by
+     * {@link DjangoRequestLifecycle}, isn't parsed for nothing.
+     *
+     * @return an error response if request has been cancelled, null otherwise
+     */
+    @Nullable
+    protected <R> Response<R> cancelledResponse() {
+        return isCanceled() ? Response.<R>error(new VolleyError("Request cancelled before parse.")) : null;
+    }
+
+    /**
+     * Adds a listener that is notified when this request is cancelled, right away if it
+     * already is.
+     *
+     * @param listener a {@link CancelListener}
+     */
+    public void addCancelListener(CancelListener listener) {
+        cancelListeners.add(listener);
+        if (isCanceled() && cancelListeners.remove(listener))
+            listener.onCancel(this);
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        for (CancelListener listener : cancelListeners) {
+            // Removing first makes sure each listener runs once, even if cancel() races
+            if (cancelListeners.remove(listener))
+                listener.onCancel(this);
+        }
+    }
+
+    /**
+     * Adds an observer that is notified once this request finishes.
+     * Cancelled requests notify neither listeners nor observers.
+     *
+     * @param observer a {@link ResultObserver}
+     */
+    public void addResultObserver(ResultObserver<T> observer) {
+        observers.add(observer);
+    }
+
+    /**
+     * Feeds failed responses and timeouts to {@link DjangoNetworkQuality}.
+     * Successful responses are recorded by subclasses in parseNetworkResponse.
+     */
+    @Override
+    protected VolleyError parseNetworkError(VolleyError volleyError) {
+        if (volleyError instanceof TimeoutError)
+            DjangoNetworkQuality.getInstance().recordTimeout();
+        else if (volleyError.networkResponse != null)
+            DjangoNetworkQuality.getInstance().record(volleyError.networkResponse);
+        return super.parseNetworkError(volleyError);
+    }
+
+    @Override
+    protected void deliverResponse(T response) {
+        super.deliverResponse(response);
+        for (ResultObserver<T> observer : observers) {
+            observer.onResult(this, response);
+        }
+    }
+
+    @Override
+    public void deliverError(VolleyError error) {
+        super.deliverError(error);
+        for (ResultObserver<T> observer : observers) {
+            observer.onError(this, error);
+        }
+    }
+
     /**
      * Sets Content-Type to application/json
-     * Checks for presence of token in SharedPreferenceAdapter and sets it.
+     * Checks for presence of token in the session of this request, or in
+     * SharedPreferenceAdapter if there is none, and sets it.
      * @return Map a Map of headers
      */
     @Override
     public Map<String, String> getHeaders() {
-        UserSharedPreferenceAdapter shaPre;
-
         Map<String, String> headers = new HashMap<>();
         headers.put("Content-Type", "application/json");
-        shaPre = new UserSharedPreferenceAdapter(cont);
 
-        String token = shaPre.getToken();
+        DjangoSession session = this.session;
+        if (session != null) {
+            String token = session.getToken();
+            if (token != null) {
+                headers.put(session.getAuthorizationHeader(), session.getTokenPrefix() + token);
+            }
+        } else {
+            UserSharedPreferenceAdapter shaPre = new UserSharedPreferenceAdapter(cont);
+
+            String token = shaPre.getToken();
+
+            if (token != null) {
+                headers.put(keyAuthorizationHeader, keyTokenPrefix + token);
+            }
+        }
 
-        if(token != null){
-            headers.put(keyAuthorizationHeader, keyTokenPrefix + token);
+        synchronized (extraHeaders) {
+            headers.putAll(extraHeaders);
         }
         return headers;
     }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.android.volley.RequestQueue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects {@link DjangoBaseRequest} for a short window, or until a size limit is reached,
+ * and sends them to a batch endpoint as one {@link DjangoBatchRequest}.
+ *
+ * Listeners and {@link DjangoErrorListener} of every request are invoked as if the request
+ * had been sent on its own:
+ * <pre>{@code
+ *     DjangoBatchQueue batch = new DjangoBatchQueue(queue, "https://example.com/api/batch/", context);
+ *     batch.add(new DjangoJSONObjectRequest(Request.Method.PATCH, url1, body1, listener1, errorListener1, context));
+ *     batch.add(new DjangoJSONObjectRequest(Request.Method.PATCH, url2, body2, listener2, errorListener2, context));
+ * }</pre>
+ */
+public class DjangoBatchQueue {
+
+    public static final long DEFAULT_WINDOW_MS = 50;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 20;
+
+    private final RequestQueue queue;
+    private final String batchUrl;
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private long window = DEFAULT_WINDOW_MS;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    // Requests waiting for the window to close, by session, as a batch carries the
+    // credentials of a single session
+    private Map<DjangoSession, List<DjangoBaseRequest<?>>> pending = new LinkedHashMap<>();
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /**
+     * @param queue {@link RequestQueue} to which batches are added
+     * @param batchUrl URL of the batch endpoint
+     * @param context Context for accessing SharedPreference (used in headers)
+     */
+    public DjangoBatchQueue(RequestQueue queue, String batchUrl, Context context) {
+        this.queue = queue;
+        this.batchUrl = batchUrl;
+        this.context = context;
+    }
+
+    /**
+     * @param window time in milliseconds to wait for more requests after the first one
+     */
+    public void setWindow(long window) {
+        this.window = window;
+    }
+
+    /**
+     * @param maxBatchSize number of requests after which a batch is sent without waiting
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Adds a request to the current batch of its session. Requests of different sessions
+     * are never sent in the same batch.
+     *
+     * @param request a {@link DjangoBaseRequest} that has not been added to a queue, with
+     *                its session already set
+     */
+    public synchronized void add(DjangoBaseRequest<?> request) {
+        boolean wasEmpty = pending.isEmpty();
+        DjangoSession session = request.getSession();
+        List<DjangoBaseRequest<?>> requests = pending.get(session);
+        if (requests == null) {
+            requests = new ArrayList<>();
+            pending.put(session, requests);
+        }
+        requests.add(request);
+
+        if (requests.size() >= maxBatchSize) {
+            pending.remove(session);
+            send(requests);
+            if (pending.isEmpty())
+                handler.removeCallbacks(flushTask);
+        } else if (wasEmpty) {
+            handler.postDelayed(flushTask, window);
+        }
+    }
+
+    /**
+     * Sends the requests collected so far without waiting for the window to close.
+     */
+    public synchronized void flush() {
+        handler.removeCallbacks(flushTask);
+        if (pending.isEmpty())
+            return;
+
+        Map<DjangoSession, List<DjangoBaseRequest<?>>> batches = pending;
+        pending = new LinkedHashMap<>();
+        for (List<DjangoBaseRequest<?>> requests : batches.values()) {
+            send(requests);
+        }
+    }
+
+    private void send(List<DjangoBaseRequest<?>> requests) {
+        // A batch of one gains nothing from the batch endpoint
+        if (requests.size() == 1)
+            queue.add(requests.get(0));
+        else
+            queue.add(new DjangoBatchRequest(batchUrl, requests, context));
+    }
+}
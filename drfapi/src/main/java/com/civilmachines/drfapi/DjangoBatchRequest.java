@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.content.Context;
+import android.support.annotation.Nullable;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.ClientError;
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Response;
+import com.android.volley.ServerError;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.android.volley.toolbox.JsonRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sends several {@link DjangoBaseRequest} to a batch endpoint as a single request and hands
+ * every part of the combined response back to the listener of the request it belongs to.
+ *
+ * Request body sent to the batch endpoint:
+ * <pre>
+ *     {@code [{"method": "PATCH", "url": "/api/users/1/", "headers": {...}, "body": {...}}, ...]}
+ * </pre>
+ * Expected response, in the same order:
+ * <pre>
+ *     {@code [{"status": 200, "headers": {...}, "body": {...}}, ...]}
+ * </pre>
+ *
+ * Every request in a batch must belong to the same {@link DjangoSession}, or to none. The
+ * batch is sent with the credentials of that session, in place of those of each request.
+ * {@link DjangoBatchQueue} batches requests of different sessions separately.
+ *
+ * A batch is never retried on timeout. Volley would resend the whole batch, including
+ * POSTs and other requests that are not safe to repeat.
+ *
+ * Usually created by {@link DjangoBatchQueue}. A reference Django view implementing the
+ * endpoint is available in {@code extras/django/batch_view.py}.
+ */
+public class DjangoBatchRequest extends DjangoBaseRequest<List<Response<?>>> {
+
+    private final List<DjangoBaseRequest<?>> requests;
+
+    /**
+     * @param url URL of the batch endpoint
+     * @param requests requests to be sent in batch, they must not be added to a queue
+     * @param context Context for accessing SharedPreference (used in headers)
+     * @throws IllegalArgumentException if requests is empty or belongs to more than one session
+     */
+    public DjangoBatchRequest(String url, List<DjangoBaseRequest<?>> requests, Context context) {
+        super(Method.POST, url, toBatchBody(requests), null, null, context);
+        this.requests = new ArrayList<>(requests);
+        setSession(getCommonSession(this.requests));
+        setShouldCache(false);
+        setRetryPolicy(new DefaultRetryPolicy(getTimeoutMs(), 0, DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
+    }
+
+    /**
+     * @return requests sent in this batch
+     */
+    public List<DjangoBaseRequest<?>> getRequests() {
+        return Collections.unmodifiableList(requests);
+    }
+
+    @Nullable
+    private static DjangoSession getCommonSession(List<DjangoBaseRequest<?>> requests) {
+        if (requests.isEmpty())
+            throw new IllegalArgumentException("A batch needs at least one request.");
+        DjangoSession session = requests.get(0).getSession();
+        for (DjangoBaseRequest<?> request : requests) {
+            if (request.getSession() != session)
+                throw new IllegalArgumentException("Requests of different sessions can't share a batch.");
+        }
+        return session;
+    }
+
+    private static String toBatchBody(List<DjangoBaseRequest<?>> requests) {
+        JSONArray batch = new JSONArray();
+        try {
+            for (DjangoBaseRequest<?> request : requests) {
+                JSONObject item = new JSONObject();
+                item.put("method", methodName(request.getMethod()));
+                item.put("url", relativeUrl(request.getUrl()));
+
+                JSONObject headers = new JSONObject();
+                for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                    // Content type and credentials are sent once on the batch request itself
+                    if (!header.getKey().equalsIgnoreCase("Content-Type")
+                            && !header.getKey().equalsIgnoreCase(request.getAuthorizationHeaderName()))
+                        headers.put(header.getKey(), header.getValue());
+                }
+                if (headers.length() > 0)
+                    item.put("headers", headers);
+
+                byte[] body = request.getBody();
+                if (body != null)
+                    item.put("body", new JSONTokener(new String(body, JsonRequest.PROTOCOL_CHARSET)).nextValue());
+                batch.put(item);
+            }
+        } catch (JSONException | UnsupportedEncodingException e) {
+            throw new IllegalArgumentException("Request body is not valid JSON.", e);
+        }
+        return batch.toString();
+    }
+
+    private static String relativeUrl(String url) {
+        try {
+            return new URL(url).getFile();
+        } catch (MalformedURLException e) {
+            return url;
+        }
+    }
+
+    private static String methodName(int method) {
+        switch (method) {
+            case Method.POST:
+                return "POST";
+            case Method.PUT:
+                return "PUT";
+            case Method.DELETE:
+                return "DELETE";
+            case Method.HEAD:
+                return "HEAD";
+            case Method.OPTIONS:
+                return "OPTIONS";
+            case Method.TRACE:
+                return "TRACE";
+            case Method.PATCH:
+                return "PATCH";
+            default:
+                return "GET";
+        }
+    }
+
+    /**
+     * Splits the combined response and parses every part with the request it belongs to,
+     * on the network thread.
+     *
+     * @param response NetworkResponse of batch endpoint
+     * @return Response.success with one Response per request or
+     *         Response.error when the combined response is malformed
+     */
+    @Override
+    protected Response<List<Response<?>>> parseNetworkResponse(NetworkResponse response) {
+        Response<List<Response<?>>> cancelled = cancelledResponse();
+        if (cancelled != null)
+            return cancelled;
+        DjangoNetworkQuality.getInstance().record(response);
+
+        try {
+            String jsonString = new String(response.data,
+                    HttpHeaderParser.parseCharset(response.headers, JsonRequest.PROTOCOL_CHARSET));
+            JSONArray items = new JSONArray(jsonString);
+            if (items.length() != requests.size())
+                return Response.error(new ParseError(new JSONException(
+                        "Expected " + requests.size() + " responses, got " + items.length())));
+
+            List<Response<?>> responses = new ArrayList<>(items.length());
+            for (int i = 0; i < items.length(); i++) {
+                // Parts carry no network time of their own, so the batch is measured only once
+                // by DjangoNetworkQuality.
+                responses.add(parsePart(requests.get(i), items.getJSONObject(i), 0));
+            }
+            return Response.success(responses, null);
+        } catch (UnsupportedEncodingException | JSONException e) {
+            return Response.error(new ParseError(e));
+        }
+    }
+
+    private static Response<?> parsePart(DjangoBaseRequest<?> request, JSONObject item, long networkTimeMs)
+            throws JSONException, UnsupportedEncodingException {
+        int statusCode = item.getInt("status");
+
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        JSONObject jsonHeaders = item.optJSONObject("headers");
+        if (jsonHeaders != null) {
+            Iterator<String> keys = jsonHeaders.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                headers.put(key, jsonHeaders.getString(key));
+            }
+        }
+
+        Object body = item.opt("body");
+        byte[] data = (body == null || body == JSONObject.NULL)
+                ? new byte[0]
+                : body.toString().getBytes(JsonRequest.PROTOCOL_CHARSET);
+
+        NetworkResponse part = new NetworkResponse(statusCode, data, headers, false, networkTimeMs);
+        if (statusCode >= 200 && statusCode < 300)
+            return request.parseNetworkResponse(part);
+
+        VolleyError error;
+        if (statusCode == 401 || statusCode == 403)
+            error = new AuthFailureError(part);
+        else if (statusCode >= 400 && statusCode <= 499)
+            error = new ClientError(part);
+        else
+            error = new ServerError(part);
+        // As Volley does for a request of its own, on the network thread
+        return Response.error(request.parseNetworkError(error));
+    }
+
+    @Override
+    protected void deliverResponse(List<Response<?>> responses) {
+        super.deliverResponse(responses);
+        for (int i = 0; i < requests.size(); i++) {
+            DjangoBaseRequest<?> request = requests.get(i);
+            Response<?> response = responses.get(i);
+            if (request.isCanceled())
+                continue;
+            if (response.isSuccess())
+                deliver(request, response.result);
+            else
+                request.deliverError(response.error);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void deliver(DjangoBaseRequest<T> request, Object result) {
+        request.deliverResponse((T) result);
+    }
+
+    @Override
+    public void deliverError(VolleyError error) {
+        super.deliverError(error);
+        for (DjangoBaseRequest<?> request : requests) {
+            if (!request.isCanceled())
+                request.deliverError(error);
+        }
+    }
+}
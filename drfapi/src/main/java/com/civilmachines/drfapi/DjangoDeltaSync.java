@@ -0,0 +1,487 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.content.Context;
+import android.database.SQLException;
+import android.support.annotation.Nullable;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.android.volley.toolbox.JsonRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps a {@link DjangoResourceCache} up to date by fetching only objects changed since the
+ * last sync, using a high-water mark stored per endpoint and per {@link DjangoSession}.
+ *
+ * The endpoint is expected to:
+ * <ul>
+ *     <li>filter with "greater than or equal" on a cursor parameter,
+ *     {@code ?modified__gte=<timestamp>} by default, so objects sharing the timestamp of the
+ *     mark are not missed. Objects at the mark that were already merged are recognised by
+ *     primary key and skipped.</li>
+ *     <li>return deleted objects as tombstones, with {@code "is_deleted": true} by default.</li>
+ *     <li>serialize the modification timestamp in a single, sortable format, such as DRF's
+ *     default ISO 8601 output in UTC.</li>
+ *     <li>order results by modification timestamp, oldest first. {@code ?ordering=modified} is
+ *     sent for DRF's OrderingFilter, see {@link #setOrderingParameter(String)}.</li>
+ * </ul>
+ * Paginated and plain list responses are both supported. {@code next} links of DRF's
+ * CursorPagination are followed as they are. Page numbers shift when objects change during a
+ * sync, so with other pagination styles the next page is instead read again from the newest
+ * mark seen so far. The {@code next} link is only followed when a whole page shares one
+ * timestamp.
+ *
+ * Pages are merged into the cache on the network thread. Progress is saved after every page,
+ * without blocking the main thread. When a sync is interrupted, the next one resumes from the
+ * page it stopped at, and the mark only moves forward once all pages have been merged.
+ * The cache should belong to the same session as the sync.
+ * <pre>{@code
+ *     DjangoDeltaSync sync = new DjangoDeltaSync(queue, context, "https://example.com/api/tasks/", cache);
+ *     sync.start(new DjangoDeltaSync.Listener() {
+ *         public void onSyncComplete(int updated, int deleted) { ... }
+ *     }, errorListener);
+ * }</pre>
+ */
+public class DjangoDeltaSync {
+
+    public static String syncPreference = "drfapi_sync";
+
+    private static final String CHARSET = "UTF-8";
+
+    /**
+     * Receives the result of a sync, on the main thread
+     */
+    public interface Listener {
+
+        /**
+         * @param updated number of objects inserted or updated in cache
+         * @param deleted number of tombstones received
+         */
+        void onSyncComplete(int updated, int deleted);
+    }
+
+    private final RequestQueue queue;
+    private final Context context;
+    private final String endpoint;
+    private final DjangoResourceCache cache;
+    private final DjangoSession session;
+    private final SharedPreferenceAdapter state;
+
+    private String primaryKey = "id";
+    private String modifiedField = "modified";
+    private String deletedField = "is_deleted";
+    private String cursorParameter = "modified__gte";
+    private String orderingParameter = "ordering";
+
+    private volatile boolean running = false;
+    private volatile DjangoBaseRequest<?> current;
+    private int updated;
+    private int deleted;
+
+    // Newest timestamp merged by this sync so far, and primary keys of objects having it
+    private String pendingMark;
+    private Set<String> pendingIds;
+
+    // Cancelled pages are neither delivered nor always finished by Volley, so this is the
+    // only way a sync learns that it has been stopped, e.g. by DjangoRequestLifecycle
+    private final DjangoBaseRequest.CancelListener cancelListener = new DjangoBaseRequest.CancelListener() {
+        @Override
+        public void onCancel(DjangoBaseRequest<?> request) {
+            if (request == current)
+                finish();
+        }
+    };
+
+    /**
+     * Creates a sync for the current {@link DjangoSession}.
+     *
+     * @param queue {@link RequestQueue} to which requests are added
+     * @param cont any context
+     * @param endpoint URL of list endpoint, without the cursor parameter
+     * @param cache cache the changes are merged into
+     */
+    public DjangoDeltaSync(RequestQueue queue, Context cont, String endpoint, DjangoResourceCache cache) {
+        this(queue, cont, DjangoSession.getCurrent(), endpoint, cache);
+    }
+
+    /**
+     * @param queue {@link RequestQueue} to which requests are added
+     * @param cont any context
+     * @param session session the pages are fetched with and the marks are kept for,
+     *                null to use the default preferences
+     * @param endpoint URL of list endpoint, without the cursor parameter
+     * @param cache cache the changes are merged into
+     */
+    public DjangoDeltaSync(RequestQueue queue, Context cont, @Nullable DjangoSession session,
+                           String endpoint, DjangoResourceCache cache) {
+        this.queue = queue;
+        this.context = cont;
+        this.session = session;
+        this.endpoint = endpoint;
+        this.cache = cache;
+        this.state = session == null
+                ? new SharedPreferenceAdapter(cont, syncPreference)
+                : session.getPreferences(syncPreference);
+    }
+
+    /**
+     * @param primaryKey field holding primary key, "id" by default
+     */
+    public void setPrimaryKey(String primaryKey) {
+        this.primaryKey = primaryKey;
+    }
+
+    /**
+     * @param modifiedField field holding modification timestamp, "modified" by default
+     */
+    public void setModifiedField(String modifiedField) {
+        this.modifiedField = modifiedField;
+    }
+
+    /**
+     * @param deletedField boolean field marking tombstones, "is_deleted" by default
+     */
+    public void setDeletedField(String deletedField) {
+        this.deletedField = deletedField;
+    }
+
+    /**
+     * @param cursorParameter query parameter filtering on modification timestamp with
+     *                        "greater than or equal", "modified__gte" by default
+     */
+    public void setCursorParameter(String cursorParameter) {
+        this.cursorParameter = cursorParameter;
+    }
+
+    /**
+     * @param orderingParameter query parameter ordering results by modification timestamp,
+     *                          "ordering" by default, null if the endpoint orders them itself
+     */
+    public void setOrderingParameter(@Nullable String orderingParameter) {
+        this.orderingParameter = orderingParameter;
+    }
+
+    private String keyMark() {
+        return endpoint + "#mark";
+    }
+
+    private String keyMarkIds() {
+        return endpoint + "#mark_ids";
+    }
+
+    private String keyPendingMark() {
+        return endpoint + "#pending_mark";
+    }
+
+    private String keyPendingIds() {
+        return endpoint + "#pending_ids";
+    }
+
+    private String keyNext() {
+        return endpoint + "#next";
+    }
+
+    /**
+     * @return timestamp of the newest object merged by a completed sync, null before the first one
+     */
+    @Nullable
+    public String getHighWaterMark() {
+        return state.getString(keyMark());
+    }
+
+    /**
+     * Forgets sync state, so that the next sync fetches the whole collection.
+     */
+    public void reset() {
+        state.begin()
+                .remove(keyMark())
+                .remove(keyMarkIds())
+                .remove(keyPendingMark())
+                .remove(keyPendingIds())
+                .remove(keyNext())
+                .apply();
+    }
+
+    /**
+     * @return true while a sync is in progress
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts a sync, or resumes an interrupted one. Does nothing if a sync is in progress.
+     * Must be called on the main thread.
+     *
+     * @param listener notified once every page has been merged
+     * @param errorListener notified if a page fails, the sync resumes from that page next time
+     * @return false if a sync is already in progress
+     */
+    public boolean start(final Listener listener, @Nullable final DjangoErrorListener errorListener) {
+        if (running)
+            return false;
+        running = true;
+        updated = 0;
+        deleted = 0;
+
+        pendingMark = state.getString(keyPendingMark());
+        pendingIds = readIds(keyPendingIds());
+        if (pendingMark == null) {
+            pendingMark = state.getString(keyMark());
+            pendingIds = readIds(keyMarkIds());
+        }
+
+        String url = state.getString(keyNext());
+        if (url == null)
+            url = fromMark(pendingMark);
+        fetch(url, listener, errorListener);
+        return true;
+    }
+
+    private void fetch(String url, final Listener listener, @Nullable final DjangoErrorListener errorListener) {
+        PageRequest request = new PageRequest(url, pendingMark, pendingIds, errorListener);
+        request.addResultObserver(new DjangoBaseRequest.ResultObserver<Page>() {
+            @Override
+            public void onResult(DjangoBaseRequest<Page> request, Page page) {
+                onPage(request, page, listener, errorListener);
+            }
+
+            @Override
+            public void onError(DjangoBaseRequest<Page> request, VolleyError error) {
+                finish();
+            }
+        });
+        current = request;
+        request.addCancelListener(cancelListener);
+        queue.add(request);
+    }
+
+    /**
+     * Ends the sync, whether it completed, failed or its page was cancelled.
+     */
+    private void finish() {
+        current = null;
+        running = false;
+    }
+
+    private String fromMark(@Nullable String mark) {
+        DjangoURLBuilder builder = new DjangoURLBuilder(endpoint).filter(cursorParameter, mark);
+        if (orderingParameter != null)
+            builder.filter(orderingParameter, modifiedField);
+        return builder.build();
+    }
+
+    @Nullable
+    private String nextUrl(DjangoBaseRequest<Page> request, Page page) {
+        if (page.next == null)
+            return null;
+        // Cursors of CursorPagination stay valid while objects change
+        if (getParameter(page.next, "cursor") != null)
+            return page.next;
+        // Page numbers don't, so read again from the newest mark unless the page didn't move it
+        if (pendingMark != null && !pendingMark.equals(getParameter(request.getUrl(), cursorParameter)))
+            return fromMark(pendingMark);
+        return page.next;
+    }
+
+    private void onPage(DjangoBaseRequest<Page> request, Page page, Listener listener,
+                        @Nullable DjangoErrorListener errorListener) {
+        updated += page.updated;
+        deleted += page.deleted;
+
+        if (page.mark != null) {
+            int order = pendingMark == null ? 1 : page.mark.compareTo(pendingMark);
+            if (order > 0) {
+                pendingMark = page.mark;
+                pendingIds = page.markIds;
+            } else if (order == 0) {
+                pendingIds.addAll(page.markIds);
+            }
+        }
+
+        String next = nextUrl(request, page);
+        if (next != null) {
+            SharedPreferenceAdapter.Batch batch = state.begin().saveData(keyNext(), next);
+            if (pendingMark != null)
+                batch.saveData(keyPendingMark(), pendingMark).saveData(keyPendingIds(), new HashSet<>(pendingIds));
+            batch.apply();
+            fetch(next, listener, errorListener);
+            return;
+        }
+
+        SharedPreferenceAdapter.Batch batch = state.begin()
+                .remove(keyNext())
+                .remove(keyPendingMark())
+                .remove(keyPendingIds());
+        if (pendingMark != null)
+            batch.saveData(keyMark(), pendingMark).saveData(keyMarkIds(), new HashSet<>(pendingIds));
+        batch.apply();
+
+        finish();
+        listener.onSyncComplete(updated, deleted);
+    }
+
+    private Set<String> readIds(String key) {
+        Set<String> ids = state.getStringSet(key);
+        return ids == null ? new HashSet<String>() : new HashSet<>(ids);
+    }
+
+    /**
+     * Merges a page into cache, on the network thread.
+     *
+     * @param changed objects to insert or update
+     * @param removed primary keys of tombstones
+     * @return number of objects inserted or updated
+     */
+    int merge(JSONArray changed, List<Object> removed) throws JSONException {
+        int count = cache.upsert(changed);
+        if (!removed.isEmpty())
+            cache.delete(removed);
+        return count;
+    }
+
+    @Nullable
+    private static String getParameter(String url, String name) {
+        int start = url.indexOf('?');
+        if (start < 0)
+            return null;
+        for (String pair : url.substring(start + 1).split("&")) {
+            int equals = pair.indexOf('=');
+            if (decode(equals < 0 ? pair : pair.substring(0, equals)).equals(name))
+                return equals < 0 ? "" : decode(pair.substring(equals + 1));
+        }
+        return null;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * A page of changes, already merged into cache.
+     */
+    private static class Page {
+        String next;
+        String mark;
+        Set<String> markIds = new HashSet<>();
+        int updated;
+        int deleted;
+    }
+
+    /**
+     * Fetches a page and merges it into cache on the network thread.
+     */
+    private class PageRequest extends DjangoBaseRequest<Page> {
+
+        private final String skipMark;
+        private final Set<String> skipIds;
+
+        /**
+         * @param skipMark timestamp of objects merged already
+         * @param skipIds primary keys of objects with skipMark merged already
+         */
+        PageRequest(String url, @Nullable String skipMark, Set<String> skipIds,
+                    @Nullable DjangoErrorListener errorListener) {
+            super(Method.GET, url, null, null, errorListener, context);
+            this.skipMark = skipMark;
+            this.skipIds = Collections.unmodifiableSet(new HashSet<>(skipIds));
+            setSession(session);
+            setShouldCache(false);
+        }
+
+        @Override
+        protected Response<Page> parseNetworkResponse(NetworkResponse response) {
+            Response<Page> cancelled = cancelledResponse();
+            if (cancelled != null)
+                return cancelled;
+            DjangoNetworkQuality.getInstance().record(response);
+
+            try {
+                String jsonString = new String(response.data,
+                        HttpHeaderParser.parseCharset(response.headers, JsonRequest.PROTOCOL_CHARSET));
+                Object body = new JSONTokener(jsonString).nextValue();
+
+                Page page = new Page();
+                JSONArray results;
+                if (body instanceof JSONArray) {
+                    results = (JSONArray) body;
+                } else if (body instanceof JSONObject) {
+                    results = ((JSONObject) body).getJSONArray("results");
+                    String next = ((JSONObject) body).optString("next", null);
+                    page.next = (next == null || next.equals("null")) ? null : next;
+                } else {
+                    return Response.error(new ParseError(new JSONException("Expected a list of objects")));
+                }
+
+                JSONArray changed = new JSONArray();
+                List<Object> removed = new ArrayList<>();
+                for (int i = 0; i < results.length(); i++) {
+                    JSONObject object = results.getJSONObject(i);
+                    String modified = object.optString(modifiedField, null);
+                    String id = String.valueOf(object.get(primaryKey));
+
+                    if (modified != null) {
+                        int order = page.mark == null ? 1 : modified.compareTo(page.mark);
+                        if (order > 0) {
+                            page.mark = modified;
+                            page.markIds = new HashSet<>();
+                        }
+                        if (order >= 0)
+                            page.markIds.add(id);
+                    }
+
+                    // Returned again by the inclusive filter, merged by an earlier page or sync
+                    if (modified != null && modified.equals(skipMark) && skipIds.contains(id))
+                        continue;
+
+                    if (object.optBoolean(deletedField, false))
+                        removed.add(object.get(primaryKey));
+                    else
+                        changed.put(object);
+                }
+                page.updated = merge(changed, removed);
+                page.deleted = removed.size();
+
+                return Response.success(page, null);
+            } catch (UnsupportedEncodingException | JSONException | SQLException e) {
+                return Response.error(new ParseError(e));
+            }
+        }
+    }
+}
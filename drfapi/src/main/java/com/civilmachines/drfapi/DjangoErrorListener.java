@@ -204,6 +204,25 @@ public abstract class DjangoErrorListener implements Response.ErrorListener {
      * @param error A {@link VolleyError} object.
      */
     public void onErrorResponse(VolleyError error) {
+        // TimeoutError and NoConnectionError are raised before any response is received, and
+        // AuthFailureError without one when an Authenticator fails to provide a token
+        if (error.networkResponse == null) {
+            String message = error.getMessage();
+            if (error instanceof AuthFailureError)
+                onAuthFailureError(message);
+            else if (error instanceof TimeoutError)
+                onTimeoutError(message);
+            else if (error instanceof NoConnectionError)
+                onNoConnectionError(message);
+            else if (error instanceof NetworkError)
+                onNetworkError(message);
+            else if (error instanceof ParseError)
+                onParseError(message);
+            else
+                onDefaultError(message);
+            return;
+        }
+
         // Extract response in form of string from data
         String response = new String(error.networkResponse.data);
 
@@ -214,7 +233,7 @@ public abstract class DjangoErrorListener implements Response.ErrorListener {
         boolean is_html_response;
         try {
             is_html_response = (error.networkResponse.headers.containsKey("Content-Type")
-                    && error.networkResponse.headers.get("Content-Type").equals("text/html"));
+                    && error.networkResponse.headers.get("Content-Type").startsWith("text/html"));
         } catch (NullPointerException ex) {
             is_html_response = false;
         }
@@ -264,7 +283,8 @@ public abstract class DjangoErrorListener implements Response.ErrorListener {
                                 onBadRequestError(error_response);
                             break;
                         }
-                        case 403 | 401: {
+                        case 403:
+                        case 401: {
                             onForbiddenError(error_response.optString("detail",
                                     "You're not allowed to make this request."));
                             break;
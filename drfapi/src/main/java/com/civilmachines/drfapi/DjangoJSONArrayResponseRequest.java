@@ -18,7 +18,9 @@ package com.civilmachines.drfapi;
 
 import android.app.Activity;
 import android.content.Context;
+import android.database.SQLException;
 import android.support.annotation.Nullable;
+import android.util.Log;
 
 import com.android.volley.NetworkResponse;
 import com.android.volley.ParseError;
@@ -40,6 +42,14 @@ import java.io.UnsupportedEncodingException;
  * @author <a href="https://divyatiwari.me" target="_blank">Divya Tiwari</a>
  */
 public class DjangoJSONArrayResponseRequest extends DjangoBaseRequest<JSONArray> {
+
+    private static final String TAG = "DjangoJSONArrayRequest";
+
+    // Stores every successful response, on the network thread
+    private DjangoResourceCache resourceCache;
+    private boolean completeList = false;
+    private DjangoParsedResponseCache parsedResponseCache;
+
     /**
      * Creates a new JSONObject request from Django REST Framework APIs
      *
@@ -87,6 +97,39 @@ public class DjangoJSONArrayResponseRequest extends DjangoBaseRequest<JSONArray>
                 url, jsonRequest, listener, errorListener, context);
     }
 
+    /**
+     * Stores objects of every successful response in a local cache, before the response
+     * is delivered. Failing to store doesn't fail the request.
+     *
+     * @param resourceCache cache of the resource this request lists, null to disable
+     */
+    public void setResourceCache(@Nullable DjangoResourceCache resourceCache) {
+        setResourceCache(resourceCache, false);
+    }
+
+    /**
+     * Like {@link #setResourceCache(DjangoResourceCache)}, but a complete list also removes
+     * cached objects that are missing from the response, i.e. deleted on the server.
+     *
+     * @param resourceCache cache of the resource this request lists, null to disable
+     * @param completeList true if the response lists every object of the resource, i.e. the
+     *                     URL has no filters, search or pagination
+     */
+    public void setResourceCache(@Nullable DjangoResourceCache resourceCache, boolean completeList) {
+        this.resourceCache = resourceCache;
+        this.completeList = completeList;
+    }
+
+    /**
+     * Reuses the response parsed from an identical body of this URL instead of parsing it
+     * again. The JSONArray received by listener is then shared and must not be modified.
+     *
+     * @param parsedResponseCache cache of parsed responses, null to disable
+     */
+    public void setParsedResponseCache(@Nullable DjangoParsedResponseCache parsedResponseCache) {
+        this.parsedResponseCache = parsedResponseCache;
+    }
+
     /**
      * Returns response in JSONArray format
      *
@@ -97,11 +140,36 @@ public class DjangoJSONArrayResponseRequest extends DjangoBaseRequest<JSONArray>
      */
     @Override
     protected Response<JSONArray> parseNetworkResponse(NetworkResponse response) {
+        Response<JSONArray> cancelled = cancelledResponse();
+        if (cancelled != null)
+            return cancelled;
+        DjangoNetworkQuality.getInstance().record(response);
+
         try {
-            String jsonString = new String(response.data,
-                    HttpHeaderParser.parseCharset(response.headers, JsonRequest.PROTOCOL_CHARSET));
+            JSONArray array = parsedResponseCache == null ? null
+                    : parsedResponseCache.get(getUrl(), response.data, JSONArray.class);
+            // An identical body was stored when it was first parsed
+            boolean stored = array != null;
+            if (array == null) {
+                String jsonString = new String(response.data,
+                        HttpHeaderParser.parseCharset(response.headers, JsonRequest.PROTOCOL_CHARSET));
+                array = new JSONArray(jsonString);
+                if (parsedResponseCache != null)
+                    parsedResponseCache.put(getUrl(), response.data, array);
+            }
+
+            if (resourceCache != null && !stored) {
+                try {
+                    if (completeList)
+                        resourceCache.replace(array);
+                    else
+                        resourceCache.upsert(array);
+                } catch (JSONException | SQLException e) {
+                    Log.w(TAG, "Couldn't store response of " + getUrl() + " in cache", e);
+                }
+            }
 
-            return Response.success(new JSONArray(jsonString),
+            return Response.success(array,
                     HttpHeaderParser.parseCacheHeaders(response));
         } catch (UnsupportedEncodingException |JSONException e) {
             return Response.error(new ParseError(e));
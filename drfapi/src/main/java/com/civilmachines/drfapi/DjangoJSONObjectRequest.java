@@ -41,6 +41,10 @@ import java.io.UnsupportedEncodingException;
  */
 public class DjangoJSONObjectRequest extends DjangoBaseRequest<JSONObject> {
 
+    // Remembers every successful response, used to compute minimal PATCH bodies
+    private DjangoObjectTracker objectTracker;
+    private DjangoParsedResponseCache parsedResponseCache;
+
     /**
      * Creates a new JSONObject request from Django REST Framework APIs
      *
@@ -86,6 +90,27 @@ public class DjangoJSONObjectRequest extends DjangoBaseRequest<JSONObject> {
                 url, jsonRequest, listener, errorListener, context);
     }
 
+    /**
+     * Remembers every successful response as the last server representation of the URL,
+     * so that {@link DjangoObjectTracker#newPatchRequest} can send only changed fields.
+     *
+     * @param objectTracker tracker to remember responses in, null to disable
+     */
+    public void setObjectTracker(@Nullable DjangoObjectTracker objectTracker) {
+        this.objectTracker = objectTracker;
+    }
+
+    /**
+     * Reuses the response parsed from an identical body of this URL instead of parsing it
+     * again. The JSONObject received by listener is then shared and must not be modified.
+     * Ignored when an object tracker is set, as tracked objects are meant to be edited.
+     *
+     * @param parsedResponseCache cache of parsed responses, null to disable
+     */
+    public void setParsedResponseCache(@Nullable DjangoParsedResponseCache parsedResponseCache) {
+        this.parsedResponseCache = parsedResponseCache;
+    }
+
     /**
      * Returns response in JSONObject format
      *
@@ -96,11 +121,30 @@ public class DjangoJSONObjectRequest extends DjangoBaseRequest<JSONObject> {
      */
     @Override
     protected Response<JSONObject> parseNetworkResponse(NetworkResponse response) {
+        Response<JSONObject> cancelled = cancelledResponse();
+        if (cancelled != null)
+            return cancelled;
+        DjangoNetworkQuality.getInstance().record(response);
+
         try {
-            String jsonString = new String(response.data,
-                    HttpHeaderParser.parseCharset(response.headers, JsonRequest.PROTOCOL_CHARSET));
+            // Listeners of tracked requests get their own copy to edit
+            DjangoParsedResponseCache cache = objectTracker == null ? parsedResponseCache : null;
+            JSONObject object = cache == null ? null : cache.get(getUrl(), response.data, JSONObject.class);
+
+            if (object == null) {
+                String jsonString = new String(response.data,
+                        HttpHeaderParser.parseCharset(response.headers, JsonRequest.PROTOCOL_CHARSET));
+
+                object = new JSONObject(jsonString);
+                if (cache != null)
+                    cache.put(getUrl(), response.data, object);
+
+                if (objectTracker != null)
+                    objectTracker.remember(getUrl(), jsonString, response.headers == null ? null
+                            : response.headers.get("ETag"));
+            }
 
-            return Response.success(new JSONObject(jsonString),
+            return Response.success(object,
                     HttpHeaderParser.parseCacheHeaders(response));
         } catch (UnsupportedEncodingException|JSONException e) {
             return Response.error(new ParseError(e));
@@ -0,0 +1,453 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.content.Context;
+import android.support.annotation.Nullable;
+
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fetches the schema DRF's SimpleMetadata returns for {@code OPTIONS}, persists it per endpoint
+ * and per {@link DjangoSession}, and validates request bodies against it before they are sent,
+ * so most form errors don't cost a round trip:
+ * <pre>{@code
+ *     DjangoMetadataCache metadata = new DjangoMetadataCache(queue, context, BuildConfig.VERSION_NAME);
+ *     metadata.fetch(url, null, null);
+ *     ...
+ *     if (metadata.validate(url, Request.Method.POST, body, errorListener))
+ *         queue.add(new DjangoJSONObjectRequest(url, body, listener, errorListener, context));
+ * }</pre>
+ *
+ * Errors have the same {@code {"field": ["message"]}} structure, and the same default messages,
+ * as a 400 response of DRF and are passed to
+ * {@link DjangoErrorListener#onBadRequestError(JSONObject)}.
+ *
+ * Only what SimpleMetadata exposes is checked: required, type, max_length, min_length,
+ * max_value, min_value and choices. Everything else, e.g. uniqueness or null, is still
+ * left to the server. A stored schema is fetched again when version changes; use a version
+ * that changes with the API, such as the app version.
+ *
+ * DRF leaves out the actions a user may not use, e.g. every action before logging in.
+ * A schema without actions is therefore never stored, and is fetched again next time.
+ */
+public class DjangoMetadataCache {
+
+    public static String metadataPreference = "drfapi_metadata";
+
+    // Change these static variables to translate messages; they default to those of DRF
+    public static String messageRequired = "This field is required.";
+    public static String messageInvalidInteger = "A valid integer is required.";
+    public static String messageInvalidNumber = "A valid number is required.";
+    public static String messageInvalidBoolean = "Must be a valid boolean.";
+    public static String messageInvalidEmail = "Enter a valid email address.";
+    public static String messageInvalidChoice = "\"%s\" is not a valid choice.";
+    public static String messageNotAList = "Expected a list of items but got type \"%s\".";
+    public static String messageNotADict = "Invalid data. Expected a dictionary, but got %s.";
+    public static String messageMaxLength = "Ensure this field has no more than %s characters.";
+    public static String messageMinLength = "Ensure this field has at least %s characters.";
+    public static String messageMaxValue = "Ensure this value is less than or equal to %s.";
+    public static String messageMinValue = "Ensure this value is greater than or equal to %s.";
+
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_ACTIONS = "actions";
+
+    private final RequestQueue queue;
+    private final Context context;
+    private final DjangoSession session;
+    private final String version;
+    private final SharedPreferenceAdapter store;
+    private final Map<String, JSONObject> actions = new HashMap<>();
+
+    /**
+     * Creates a cache for the current {@link DjangoSession}.
+     *
+     * @param queue {@link RequestQueue} to which OPTIONS requests are added
+     * @param cont any context
+     * @param version version of the API, stored schemas of another version are fetched again
+     */
+    public DjangoMetadataCache(RequestQueue queue, Context cont, String version) {
+        this(queue, cont, DjangoSession.getCurrent(), version);
+    }
+
+    /**
+     * @param queue {@link RequestQueue} to which OPTIONS requests are added
+     * @param cont any context
+     * @param session session the schemas are fetched with and stored for, null to use the
+     *                default preferences
+     * @param version version of the API, stored schemas of another version are fetched again
+     */
+    public DjangoMetadataCache(RequestQueue queue, Context cont, @Nullable DjangoSession session,
+                               String version) {
+        this.queue = queue;
+        this.context = cont;
+        this.session = session;
+        this.version = version;
+        this.store = session == null
+                ? new SharedPreferenceAdapter(cont, metadataPreference)
+                : session.getPreferences(metadataPreference);
+    }
+
+    /**
+     * Sends an OPTIONS request for url, unless a schema of the current version is stored.
+     *
+     * @param url API Endpoint
+     * @param listener receives the actions of the schema, may be called right away
+     * @param errorListener error listener, or null to ignore errors
+     */
+    public void fetch(String url, @Nullable Response.Listener<JSONObject> listener,
+                      @Nullable DjangoErrorListener errorListener) {
+        JSONObject stored = getActions(url);
+        if (stored != null) {
+            if (listener != null)
+                listener.onResponse(stored);
+            return;
+        }
+        refresh(url, listener, errorListener);
+    }
+
+    /**
+     * Sends an OPTIONS request for url and replaces the stored schema, unless the response
+     * has no actions.
+     *
+     * @param url API Endpoint
+     * @param listener receives the actions of the schema
+     * @param errorListener error listener, or null to ignore errors
+     */
+    public void refresh(final String url, @Nullable final Response.Listener<JSONObject> listener,
+                        @Nullable DjangoErrorListener errorListener) {
+        DjangoJSONObjectRequest request = new DjangoJSONObjectRequest(Request.Method.OPTIONS, url, null,
+                new Response.Listener<JSONObject>() {
+                    @Override
+                    public void onResponse(JSONObject response) {
+                        // DRF leaves actions out if the user may not use them
+                        JSONObject received = response.optJSONObject(KEY_ACTIONS);
+                        if (received == null)
+                            received = new JSONObject();
+                        if (received.length() > 0)
+                            put(url, received);
+                        if (listener != null)
+                            listener.onResponse(received);
+                    }
+                }, errorListener, context);
+        request.setSession(session);
+        request.setShouldCache(false);
+        queue.add(request);
+    }
+
+    /**
+     * @param url API Endpoint
+     * @return actions of the stored schema, such as POST and PUT, or null if there is no
+     *         schema of the current version
+     */
+    @Nullable
+    public synchronized JSONObject getActions(String url) {
+        JSONObject cached = actions.get(url);
+        if (cached != null)
+            return cached;
+
+        String json = store.getString(url);
+        if (json == null)
+            return null;
+        try {
+            JSONObject stored = new JSONObject(json);
+            if (!version.equals(stored.optString(KEY_VERSION, null)))
+                return null;
+            cached = stored.getJSONObject(KEY_ACTIONS);
+        } catch (JSONException e) {
+            return null;
+        }
+        // Stored by an earlier version, before empty schemas were skipped
+        if (cached.length() == 0)
+            return null;
+        actions.put(url, cached);
+        return cached;
+    }
+
+    /**
+     * Forgets every stored schema.
+     */
+    public synchronized void clear() {
+        actions.clear();
+        store.clearData();
+    }
+
+    /**
+     * Validates body against the stored schema. PATCH is validated against the PUT schema,
+     * without requiring fields.
+     *
+     * @param url API Endpoint
+     * @param method {@link Request.Method} of request
+     * @param body body of request
+     * @return errors in the structure of DRF, or null if body is valid or there is no schema
+     *         for method
+     */
+    @Nullable
+    public JSONObject validate(String url, int method, JSONObject body) {
+        JSONObject stored = getActions(url);
+        if (stored == null)
+            return null;
+
+        JSONObject fields;
+        boolean partial = false;
+        switch (method) {
+            case Request.Method.POST:
+                fields = stored.optJSONObject("POST");
+                break;
+            case Request.Method.PATCH:
+                partial = true;
+                // fall through
+            case Request.Method.PUT:
+                fields = stored.optJSONObject("PUT");
+                break;
+            default:
+                return null;
+        }
+        if (fields == null)
+            return null;
+
+        try {
+            JSONObject errors = validateFields(fields, body, partial);
+            return errors.length() == 0 ? null : errors;
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Validates body and passes errors, if any, to
+     * {@link DjangoErrorListener#onBadRequestError(JSONObject)}.
+     *
+     * @return true if request may be sent
+     */
+    public boolean validate(String url, int method, JSONObject body, DjangoErrorListener errorListener) {
+        JSONObject errors = validate(url, method, body);
+        if (errors == null)
+            return true;
+        errorListener.onBadRequestError(errors);
+        return false;
+    }
+
+    private synchronized void put(String url, JSONObject received) {
+        actions.put(url, received);
+        try {
+            JSONObject stored = new JSONObject();
+            stored.put(KEY_VERSION, version);
+            stored.put(KEY_ACTIONS, received);
+            // Usually called on the main thread, and served from memory until restart
+            store.begin().saveData(url, stored.toString()).apply();
+        } catch (JSONException e) {
+            // Only kept in memory then
+        }
+    }
+
+    private static JSONObject validateFields(JSONObject fields, JSONObject body, boolean partial)
+            throws JSONException {
+        JSONObject errors = new JSONObject();
+        Iterator<String> names = fields.keys();
+        while (names.hasNext()) {
+            String name = names.next();
+            JSONObject field = fields.optJSONObject(name);
+            if (field == null || field.optBoolean("read_only"))
+                continue;
+
+            if (!body.has(name)) {
+                if (!partial && field.optBoolean("required"))
+                    errors.put(name, new JSONArray().put(messageRequired));
+                continue;
+            }
+
+            // Whether null is allowed isn't part of the schema
+            Object value = body.get(name);
+            if (value == JSONObject.NULL)
+                continue;
+
+            Object error = validateValue(field, value, partial);
+            if (error != null)
+                errors.put(name, error);
+        }
+        return errors;
+    }
+
+    /**
+     * @return JSONArray of messages, JSONObject of errors of a nested object, or null
+     */
+    @Nullable
+    private static Object validateValue(JSONObject field, Object value, boolean partial)
+            throws JSONException {
+        JSONArray messages = new JSONArray();
+        String type = field.optString("type");
+
+        switch (type) {
+            case "integer":
+                if (!isInteger(value))
+                    messages.put(messageInvalidInteger);
+                else
+                    checkRange(field, Double.parseDouble(value.toString()), messages);
+                break;
+            case "float":
+            case "decimal":
+                if (!isNumber(value))
+                    messages.put(messageInvalidNumber);
+                else
+                    checkRange(field, Double.parseDouble(value.toString()), messages);
+                break;
+            case "boolean":
+                if (!isBoolean(value))
+                    messages.put(messageInvalidBoolean);
+                break;
+            case "choice":
+                if (!isChoice(field, value))
+                    messages.put(String.format(messageInvalidChoice, value));
+                break;
+            case "multiple choice":
+                if (!(value instanceof JSONArray)) {
+                    messages.put(String.format(messageNotAList, typeName(value)));
+                    break;
+                }
+                JSONArray items = (JSONArray) value;
+                for (int i = 0; i < items.length(); i++) {
+                    if (!isChoice(field, items.get(i)))
+                        messages.put(String.format(messageInvalidChoice, items.get(i)));
+                }
+                break;
+            case "list":
+                if (!(value instanceof JSONArray))
+                    messages.put(String.format(messageNotAList, typeName(value)));
+                break;
+            case "nested object":
+                if (!(value instanceof JSONObject)) {
+                    messages.put(String.format(messageNotADict, typeName(value)));
+                    break;
+                }
+                JSONObject children = field.optJSONObject("children");
+                if (children == null)
+                    break;
+                JSONObject nested = validateFields(children, (JSONObject) value, partial);
+                return nested.length() == 0 ? null : nested;
+            case "email":
+                String email = value.toString();
+                int at = email.indexOf('@');
+                if (at <= 0 || at == email.length() - 1)
+                    messages.put(messageInvalidEmail);
+                checkLength(field, email, messages);
+                break;
+            case "string":
+            case "url":
+            case "slug":
+            case "regex":
+                checkLength(field, value.toString(), messages);
+                break;
+            default:
+                break;
+        }
+        return messages.length() == 0 ? null : messages;
+    }
+
+    private static void checkLength(JSONObject field, String value, JSONArray messages) {
+        // CharField strips whitespace before checking length
+        value = value.trim();
+        if (field.has("max_length") && value.length() > field.optInt("max_length"))
+            messages.put(String.format(messageMaxLength, field.opt("max_length")));
+        if (field.has("min_length") && value.length() < field.optInt("min_length"))
+            messages.put(String.format(messageMinLength, field.opt("min_length")));
+    }
+
+    private static void checkRange(JSONObject field, double value, JSONArray messages) {
+        if (field.has("max_value") && value > field.optDouble("max_value"))
+            messages.put(String.format(messageMaxValue, field.opt("max_value")));
+        if (field.has("min_value") && value < field.optDouble("min_value"))
+            messages.put(String.format(messageMinValue, field.opt("min_value")));
+    }
+
+    private static boolean isInteger(Object value) {
+        if (value instanceof Integer || value instanceof Long)
+            return true;
+        if (value instanceof Number)
+            return ((Number) value).doubleValue() == Math.rint(((Number) value).doubleValue());
+        // DRF accepts integral strings, such as "12" or "12.0"
+        return value instanceof String && ((String) value).trim().matches("-?\\d+(\\.0*)?");
+    }
+
+    private static boolean isNumber(Object value) {
+        if (value instanceof Number)
+            return true;
+        if (!(value instanceof String))
+            return false;
+        try {
+            double parsed = Double.parseDouble(((String) value).trim());
+            return !Double.isNaN(parsed) && !Double.isInfinite(parsed);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isBoolean(Object value) {
+        if (value instanceof Boolean)
+            return true;
+        if (value instanceof Number)
+            return ((Number) value).doubleValue() == 0 || ((Number) value).doubleValue() == 1;
+        if (!(value instanceof String))
+            return false;
+        // Values accepted by DRF's BooleanField
+        switch (((String) value).toLowerCase(Locale.US)) {
+            case "true": case "false": case "1": case "0": case "yes": case "no":
+            case "on": case "off": case "t": case "f": case "y": case "n":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isChoice(JSONObject field, Object value) {
+        JSONArray choices = field.optJSONArray("choices");
+        if (choices == null)
+            return true;
+        String text = value.toString();
+        for (int i = 0; i < choices.length(); i++) {
+            JSONObject choice = choices.optJSONObject(i);
+            if (choice != null && text.equals(String.valueOf(choice.opt("value"))))
+                return true;
+        }
+        return false;
+    }
+
+    private static String typeName(Object value) {
+        if (value instanceof String)
+            return "str";
+        if (value instanceof Boolean)
+            return "bool";
+        if (value instanceof Integer || value instanceof Long)
+            return "int";
+        if (value instanceof Number)
+            return "float";
+        if (value instanceof JSONArray)
+            return "list";
+        return "dict";
+    }
+}
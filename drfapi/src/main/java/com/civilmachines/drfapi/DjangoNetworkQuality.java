@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.Request;
+import com.android.volley.NetworkResponse;
+import com.android.volley.RetryPolicy;
+
+/**
+ * Keeps a rolling estimate of round trip time and throughput from completed
+ * {@link DjangoBaseRequest}s and derives request timeouts from it, the same way TCP derives
+ * its retransmission timeout: smoothed RTT plus four times its variation.
+ *
+ * Adaptive timeouts are off by default. Once enabled, every new request gets a
+ * {@link RetryPolicy} from {@link #newRetryPolicy(int)}:
+ * <pre>{@code
+ *     DjangoNetworkQuality.getInstance().setAdaptiveTimeouts(true);
+ *
+ *     int pageSize = DjangoNetworkQuality.getInstance().suggestPageSize(50);
+ * }</pre>
+ *
+ * Time measured by Volley includes the time server takes to respond, so minimum timeout
+ * should leave room for the slowest endpoint that is expected to succeed. It is
+ * {@link #DEFAULT_MIN_TIMEOUT_MS} unless changed, so fast links fail over well before
+ * Volley's fixed 2.5 seconds.
+ *
+ * POST and PATCH requests are not retried: a timeout doesn't mean the server didn't apply
+ * them, and a shorter timeout makes that more likely.
+ */
+public class DjangoNetworkQuality {
+
+    public enum BandwidthClass {
+        UNKNOWN, POOR, MODERATE, GOOD, EXCELLENT
+    }
+
+    // Responses smaller than this are dominated by latency and say little about throughput.
+    public static int minThroughputSampleBytes = 8 * 1024;
+
+    // Upper bounds of POOR, MODERATE and GOOD, in kilobits per second.
+    public static int poorKbps = 150;
+    public static int moderateKbps = 550;
+    public static int goodKbps = 2000;
+
+    public static final int DEFAULT_MIN_TIMEOUT_MS = 500;
+    public static final int DEFAULT_MAX_TIMEOUT_MS = 30000;
+
+    private static final int MAX_BACKOFF = 4;
+
+    private static final DjangoNetworkQuality instance = new DjangoNetworkQuality();
+
+    private boolean adaptiveTimeouts = false;
+    private int minTimeoutMs = DEFAULT_MIN_TIMEOUT_MS;
+    private int maxTimeoutMs = DEFAULT_MAX_TIMEOUT_MS;
+
+    private double srtt = -1;
+    private double rttvar = 0;
+    private double kbps = -1;
+    private int backoff = 1;
+
+    /**
+     * @return estimate shared by all requests
+     */
+    public static DjangoNetworkQuality getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param enabled true to give every new {@link DjangoBaseRequest} a timeout derived from
+     *                the current estimate
+     */
+    public synchronized void setAdaptiveTimeouts(boolean enabled) {
+        this.adaptiveTimeouts = enabled;
+    }
+
+    public synchronized boolean isAdaptiveTimeouts() {
+        return adaptiveTimeouts;
+    }
+
+    /**
+     * @param minTimeoutMs lower bound of timeouts, {@link #DEFAULT_MIN_TIMEOUT_MS} unless set
+     * @param maxTimeoutMs upper bound of timeouts, {@link #DEFAULT_MAX_TIMEOUT_MS} unless set
+     */
+    public synchronized void setTimeoutBounds(int minTimeoutMs, int maxTimeoutMs) {
+        this.minTimeoutMs = minTimeoutMs;
+        this.maxTimeoutMs = Math.max(minTimeoutMs, maxTimeoutMs);
+    }
+
+    /**
+     * Adds a completed response to the estimate. Responses served from cache carry no
+     * network time and are ignored.
+     *
+     * @param response response received from network
+     */
+    public synchronized void record(NetworkResponse response) {
+        long time = response.networkTimeMs;
+        if (time <= 0)
+            return;
+
+        // RFC 6298: RTTVAR first, with the SRTT from before this sample.
+        if (srtt < 0) {
+            srtt = time;
+            rttvar = time / 2.0;
+        } else {
+            rttvar = 0.75 * rttvar + 0.25 * Math.abs(srtt - time);
+            srtt = 0.875 * srtt + 0.125 * time;
+        }
+        backoff = 1;
+
+        if (!response.notModified && response.data != null
+                && response.data.length >= minThroughputSampleBytes) {
+            double sample = response.data.length * 8.0 / time;
+            kbps = kbps < 0 ? sample : 0.75 * kbps + 0.25 * sample;
+        }
+    }
+
+    /**
+     * Doubles timeouts of new requests, up to four times, until the next response arrives.
+     */
+    public synchronized void recordTimeout() {
+        backoff = Math.min(MAX_BACKOFF, backoff * 2);
+    }
+
+    /**
+     * @return timeout for a new request, Volley's default if nothing has been measured yet,
+     *         within the bounds either way
+     */
+    public synchronized int getTimeoutMs() {
+        long timeout = srtt < 0 ? DefaultRetryPolicy.DEFAULT_TIMEOUT_MS : Math.round(srtt + 4 * rttvar);
+        timeout = Math.max(minTimeoutMs, Math.min(maxTimeoutMs, timeout));
+        return (int) Math.min(maxTimeoutMs, timeout * backoff);
+    }
+
+    /**
+     * @param method {@link Request.Method} of request
+     * @return retry policy with a timeout derived from the current estimate, retrying only
+     *         idempotent methods
+     */
+    public RetryPolicy newRetryPolicy(int method) {
+        return new DefaultRetryPolicy(getTimeoutMs(),
+                isIdempotent(method) ? DefaultRetryPolicy.DEFAULT_MAX_RETRIES : 0,
+                DefaultRetryPolicy.DEFAULT_BACKOFF_MULT);
+    }
+
+    private static boolean isIdempotent(int method) {
+        return method != Request.Method.POST && method != Request.Method.PATCH
+                && method != Request.Method.DEPRECATED_GET_OR_POST;
+    }
+
+    /**
+     * @return smoothed round trip time in milliseconds, -1 if nothing has been measured yet
+     */
+    public synchronized long getRoundTripTimeMs() {
+        return srtt < 0 ? -1 : Math.round(srtt);
+    }
+
+    /**
+     * @return smoothed throughput in kilobits per second, -1 if nothing has been measured yet
+     */
+    public synchronized double getThroughputKbps() {
+        return kbps;
+    }
+
+    public synchronized BandwidthClass getBandwidthClass() {
+        if (kbps < 0)
+            return BandwidthClass.UNKNOWN;
+        if (kbps < poorKbps)
+            return BandwidthClass.POOR;
+        if (kbps < moderateKbps)
+            return BandwidthClass.MODERATE;
+        if (kbps < goodKbps)
+            return BandwidthClass.GOOD;
+        return BandwidthClass.EXCELLENT;
+    }
+
+    /**
+     * Scales a page size down on slow links, so that a page arrives in about the same time.
+     *
+     * @param preferred page size on a good connection
+     * @return a quarter of preferred on POOR, half on MODERATE, preferred otherwise
+     */
+    public int suggestPageSize(int preferred) {
+        switch (getBandwidthClass()) {
+            case POOR:
+                return Math.max(1, preferred / 4);
+            case MODERATE:
+                return Math.max(1, preferred / 2);
+            default:
+                return preferred;
+        }
+    }
+
+    /**
+     * Forgets everything measured so far, e.g. when device switches networks.
+     */
+    public synchronized void reset() {
+        srtt = -1;
+        rttvar = 0;
+        kbps = -1;
+        backoff = 1;
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.content.Context;
+import android.support.annotation.Nullable;
+import android.util.LruCache;
+
+import com.android.volley.Request;
+import com.android.volley.Response;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Remembers the last server representation of objects, by URL, and turns a modified copy of
+ * an object into a PATCH request carrying only the fields that changed.
+ * <pre>{@code
+ *     DjangoObjectTracker tracker = new DjangoObjectTracker(100);
+ *
+ *     DjangoJSONObjectRequest fetch = new DjangoJSONObjectRequest(url, null, listener, errorListener, context);
+ *     fetch.setObjectTracker(tracker);
+ *
+ *     // Later, after editing the received object
+ *     DjangoJSONObjectRequest patch = tracker.newPatchRequest(url, edited, true, listener, errorListener, context);
+ *     if (patch != null)
+ *         queue.add(patch);
+ * }</pre>
+ *
+ * When the server sent an ETag, it can be sent back as If-Match so that the update fails
+ * with 412 instead of overwriting changes made by someone else.
+ *
+ * Objects received through a {@link DjangoParsedResponseCache} are shared and must not be
+ * edited, so a request with a tracker doesn't use one, and the two can't be combined.
+ */
+public class DjangoObjectTracker {
+
+    /**
+     * Raw JSON body and ETag of the last representation of a URL
+     */
+    private static class Representation {
+        final String json;
+        final String etag;
+
+        Representation(String json, @Nullable String etag) {
+            this.json = json;
+            this.etag = etag;
+        }
+    }
+
+    private final LruCache<String, Representation> representations;
+
+    /**
+     * @param maxObjects number of URLs whose last representation is kept
+     */
+    public DjangoObjectTracker(int maxObjects) {
+        representations = new LruCache<>(maxObjects);
+    }
+
+    /**
+     * Stores the raw body, so later changes made to parsed objects don't affect it.
+     *
+     * @param url URL of object
+     * @param json raw JSON body of object, as received from server
+     * @param etag ETag sent by server, if any
+     */
+    public void remember(String url, String json, @Nullable String etag) {
+        representations.put(url, new Representation(json, etag));
+    }
+
+    /**
+     * @param url URL of object
+     * @param object server representation of object
+     * @param etag ETag sent by server, if any
+     */
+    public void remember(String url, JSONObject object, @Nullable String etag) {
+        remember(url, object.toString(), etag);
+    }
+
+    public void forget(String url) {
+        representations.remove(url);
+    }
+
+    /**
+     * @param url URL of object
+     * @return a new copy of the last server representation, null if unknown
+     * @throws JSONException if stored body is not a JSON object
+     */
+    @Nullable
+    public JSONObject getLast(String url) throws JSONException {
+        Representation representation = representations.get(url);
+        return representation == null ? null : new JSONObject(representation.json);
+    }
+
+    /**
+     * @param url URL of object
+     * @return ETag of the last server representation, null if unknown
+     */
+    @Nullable
+    public String getETag(String url) {
+        Representation representation = representations.get(url);
+        return representation == null ? null : representation.etag;
+    }
+
+    /**
+     * Creates a PATCH request with only the fields of modified that differ from the last
+     * server representation of url. Fields missing from modified are left out, so a partial
+     * object only updates the fields it has.
+     * Nested objects and lists are sent whole when anything in them changed, which is how
+     * DRF serializers expect them.
+     *
+     * The request remembers its response as the new representation.
+     *
+     * @param url URL of object
+     * @param modified object with local changes
+     * @param ifMatch true to send the stored ETag as If-Match
+     * @param listener Listener to receive the JSON response
+     * @param errorListener Error listener, or null to ignore errors.
+     * @param context Context for accessing SharedPreference (used in headers)
+     * @return the request, or null if nothing changed. If no representation is known,
+     *         the whole object is sent.
+     * @throws JSONException if stored body is not a JSON object
+     */
+    @Nullable
+    public DjangoJSONObjectRequest newPatchRequest(String url,
+                                                   JSONObject modified,
+                                                   boolean ifMatch,
+                                                   Response.Listener<JSONObject> listener,
+                                                   @Nullable DjangoErrorListener errorListener,
+                                                   Context context) throws JSONException {
+        return newPatchRequest(url, modified, null, ifMatch, listener, errorListener, context);
+    }
+
+    /**
+     * Like {@link #newPatchRequest(String, JSONObject, boolean, Response.Listener, DjangoErrorListener, Context)},
+     * and clears fields on the server by sending them as null.
+     *
+     * @param removed fields to send as null, or null to clear none
+     */
+    @Nullable
+    public DjangoJSONObjectRequest newPatchRequest(String url,
+                                                   JSONObject modified,
+                                                   @Nullable Collection<String> removed,
+                                                   boolean ifMatch,
+                                                   Response.Listener<JSONObject> listener,
+                                                   @Nullable DjangoErrorListener errorListener,
+                                                   Context context) throws JSONException {
+        Representation representation = representations.get(url);
+        JSONObject body = diff(representation == null ? new JSONObject() : new JSONObject(representation.json),
+                modified, removed);
+        if (body.length() == 0)
+            return null;
+
+        DjangoJSONObjectRequest request = new DjangoJSONObjectRequest(
+                Request.Method.PATCH, url, body, listener, errorListener, context);
+        request.setObjectTracker(this);
+        if (ifMatch && representation != null && representation.etag != null)
+            request.addHeader("If-Match", representation.etag);
+        return request;
+    }
+
+    /**
+     * @param original last server representation
+     * @param modified object with local changes
+     * @return fields of modified that differ from original, fields missing from modified
+     *         are left out
+     * @throws JSONException if a value can't be read
+     */
+    public static JSONObject diff(JSONObject original, JSONObject modified) throws JSONException {
+        return diff(original, modified, null);
+    }
+
+    /**
+     * @param original last server representation
+     * @param modified object with local changes
+     * @param removed fields to clear, sent as null whether or not modified has them
+     * @return fields of modified that differ from original, and removed fields set to null
+     * @throws JSONException if a value can't be read
+     */
+    public static JSONObject diff(JSONObject original, JSONObject modified,
+                                  @Nullable Collection<String> removed) throws JSONException {
+        JSONObject changes = new JSONObject();
+
+        Iterator<String> keys = modified.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = modified.get(key);
+            if (!original.has(key) || !isEqual(original.get(key), value))
+                changes.put(key, value);
+        }
+
+        if (removed != null) {
+            for (String key : removed)
+                changes.put(key, JSONObject.NULL);
+        }
+        return changes;
+    }
+
+    private static boolean isEqual(Object first, Object second) throws JSONException {
+        if (first instanceof JSONObject && second instanceof JSONObject) {
+            JSONObject a = (JSONObject) first;
+            JSONObject b = (JSONObject) second;
+            if (a.length() != b.length())
+                return false;
+            Iterator<String> keys = a.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (!b.has(key) || !isEqual(a.get(key), b.get(key)))
+                    return false;
+            }
+            return true;
+        }
+
+        if (first instanceof JSONArray && second instanceof JSONArray) {
+            JSONArray a = (JSONArray) first;
+            JSONArray b = (JSONArray) second;
+            if (a.length() != b.length())
+                return false;
+            for (int i = 0; i < a.length(); i++) {
+                if (!isEqual(a.get(i), b.get(i)))
+                    return false;
+            }
+            return true;
+        }
+
+        // 1, 1L and 1.0 are the same JSON number
+        if (first instanceof Number && second instanceof Number)
+            return new BigDecimal(first.toString()).compareTo(new BigDecimal(second.toString())) == 0;
+
+        return first.equals(second);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory LRU of the latest parsed response of every URL, so that a body that has already
+ * been parsed, e.g. an unchanged response of a polled endpoint or one served again from
+ * Volley's cache, is not parsed again:
+ * <pre>{@code
+ *     request.setParsedResponseCache(DjangoParsedResponseCache.getInstance());
+ * }</pre>
+ *
+ * Every request that receives the same body gets the same instance, so listeners must treat
+ * the JSONObject or JSONArray they receive as read only. Objects that are edited, such as those
+ * of {@link DjangoObjectTracker}, can't come from this cache.
+ *
+ * Size is estimated as {@link #sizeFactor} times the body length, to account for the parsed
+ * tree next to the body that is kept to compare with new responses.
+ */
+public class DjangoParsedResponseCache {
+
+    public static final int DEFAULT_MAX_SIZE = 2 * 1024 * 1024;
+
+    public static int sizeFactor = 4;
+
+    private static DjangoParsedResponseCache instance;
+
+    // Access order, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxSize;
+    private int size = 0;
+    private int hitCount = 0;
+    private int missCount = 0;
+
+    /**
+     * @param maxSize maximum estimated size of cached responses, in bytes
+     */
+    public DjangoParsedResponseCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return cache shared by all requests, of {@link #DEFAULT_MAX_SIZE}
+     */
+    public static synchronized DjangoParsedResponseCache getInstance() {
+        if (instance == null)
+            instance = new DjangoParsedResponseCache(DEFAULT_MAX_SIZE);
+        return instance;
+    }
+
+    /**
+     * @param url URL of request
+     * @param data body of response
+     * @param type class the response was parsed into
+     * @return response parsed earlier from the same body, null if there is none
+     */
+    @Nullable
+    public <T> T get(String url, byte[] data, Class<T> type) {
+        Entry entry;
+        synchronized (this) {
+            entry = cache.get(url);
+        }
+        // Comparing bytes is much cheaper than decoding and parsing the body
+        boolean hit = entry != null && type.isInstance(entry.parsed) && Arrays.equals(entry.data, data);
+        synchronized (this) {
+            if (hit)
+                hitCount++;
+            else
+                missCount++;
+        }
+        return hit ? type.cast(entry.parsed) : null;
+    }
+
+    /**
+     * Replaces the response cached for url, if any.
+     *
+     * @param url URL of request
+     * @param data body of response, must not be modified afterwards
+     * @param parsed response parsed from data, must not be modified afterwards
+     */
+    public void put(String url, byte[] data, Object parsed) {
+        Entry entry = new Entry(data, parsed);
+        synchronized (this) {
+            Entry previous = cache.put(url, entry);
+            size += entry.size - (previous == null ? 0 : previous.size);
+            trimToSize();
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Entry>> eldest = cache.entrySet().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            size -= eldest.next().getValue().size;
+            eldest.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        size = 0;
+    }
+
+    /**
+     * @return estimated size of cached responses, in bytes
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    private static class Entry {
+
+        final byte[] data;
+        final Object parsed;
+        final int size;
+
+        Entry(byte[] data, Object parsed) {
+            this.data = data;
+            this.parsed = parsed;
+            this.size = (int) Math.min(Integer.MAX_VALUE, (long) data.length * sizeFactor + 64);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.support.annotation.Nullable;
+
+import com.android.volley.Request;
+import com.android.volley.Response;
+
+import org.json.JSONObject;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link Future} that represents a Django REST Framework request, for use in background
+ * workers and sync jobs where a callback is inconvenient.
+ *
+ * Works as both listener and {@link DjangoErrorListener} of a request. Failures surface as
+ * {@link DjangoAPIException} whose type mirrors the listener callback:
+ * <pre>{@code
+ *     DjangoRequestFuture<JSONObject> future = DjangoRequestFuture.newFuture();
+ *     DjangoJSONObjectRequest request = new DjangoJSONObjectRequest(url, null, future, future, context);
+ *     future.setRequest(queue.add(request));
+ *
+ *     try {
+ *         JSONObject response = future.getResult(10, TimeUnit.SECONDS);
+ *     } catch (DjangoAPIException ex) {
+ *         if (ex.getType() == DjangoAPIException.Type.BAD_REQUEST) { ... }
+ *     }
+ * }</pre>
+ *
+ * Several futures may be issued first and waited on afterwards from a single thread.
+ * Never block on the main thread: responses are delivered there, so the wait would never end.
+ *
+ * Waiting ends with a {@link CancellationException} however the request is cancelled, e.g. by
+ * {@link DjangoRequestLifecycle}, a failing {@link DjangoRequestGroup} or
+ * {@link Request#cancel()} itself.
+ *
+ * @param <T> specifies the format in which response will come
+ */
+public class DjangoRequestFuture<T> extends DjangoErrorListener implements Future<T>, Response.Listener<T> {
+
+    private volatile Request<?> request;
+    private boolean resultReceived = false;
+    private T result;
+    private DjangoAPIException exception;
+
+    public static <E> DjangoRequestFuture<E> newFuture() {
+        return new DjangoRequestFuture<>();
+    }
+
+    private DjangoRequestFuture() {}
+
+    private final DjangoBaseRequest.CancelListener cancelListener = new DjangoBaseRequest.CancelListener() {
+        @Override
+        public void onCancel(DjangoBaseRequest<?> request) {
+            synchronized (DjangoRequestFuture.this) {
+                DjangoRequestFuture.this.notifyAll();
+            }
+        }
+    };
+
+    /**
+     * @param request the request this future represents, used to cancel it. A request that
+     *                is not a {@link DjangoBaseRequest} can't report being cancelled by
+     *                others, so only this future should cancel it.
+     */
+    public void setRequest(Request<?> request) {
+        this.request = request;
+        if (request instanceof DjangoBaseRequest)
+            ((DjangoBaseRequest<?>) request).addCancelListener(cancelListener);
+    }
+
+    @Override
+    public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+        if (request == null || isDone())
+            return false;
+        request.cancel();
+        notifyAll();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return request != null && request.isCanceled();
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return resultReceived || exception != null || isCancelled();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        try {
+            return doGet(null);
+        } catch (TimeoutException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return doGet(TimeUnit.MILLISECONDS.convert(timeout, unit));
+    }
+
+    /**
+     * Same as {@link #get(long, TimeUnit)} but throws {@link DjangoAPIException} directly
+     * instead of wrapping it in an {@link ExecutionException}.
+     *
+     * @param timeout maximum time to wait
+     * @param unit time unit of timeout
+     * @return parsed response
+     */
+    public T getResult(long timeout, TimeUnit unit)
+            throws DjangoAPIException, InterruptedException, TimeoutException {
+        try {
+            return get(timeout, unit);
+        } catch (ExecutionException e) {
+            throw (DjangoAPIException) e.getCause();
+        }
+    }
+
+    private synchronized T doGet(@Nullable Long timeoutMs)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (exception != null)
+            throw new ExecutionException(exception);
+
+        if (resultReceived)
+            return result;
+
+        if (timeoutMs == null) {
+            while (!isDone()) {
+                wait(0);
+            }
+        } else if (timeoutMs > 0) {
+            long now = System.currentTimeMillis();
+            long deadline = now + timeoutMs;
+            while (!isDone() && now < deadline) {
+                wait(deadline - now);
+                now = System.currentTimeMillis();
+            }
+        }
+
+        if (exception != null)
+            throw new ExecutionException(exception);
+
+        if (isCancelled())
+            throw new CancellationException("Request has been cancelled.");
+
+        if (!resultReceived)
+            throw new TimeoutException();
+
+        return result;
+    }
+
+    @Override
+    public synchronized void onResponse(T response) {
+        resultReceived = true;
+        result = response;
+        notifyAll();
+    }
+
+    private synchronized void onFailure(DjangoAPIException error) {
+        exception = error;
+        notifyAll();
+    }
+
+    private void onFailure(DjangoAPIException.Type type, String message) {
+        onFailure(new DjangoAPIException(type, message));
+    }
+
+    private void onFailure(DjangoAPIException.Type type, JSONObject response) {
+        onFailure(new DjangoAPIException(type, response));
+    }
+
+    @Override
+    public void onNetworkError(String response) {
+        onFailure(DjangoAPIException.Type.NETWORK, response);
+    }
+
+    @Override
+    public void onAuthFailureError(String response) {
+        onFailure(DjangoAPIException.Type.AUTH_FAILURE, response);
+    }
+
+    @Override
+    public void onTimeoutError(String response) {
+        onFailure(DjangoAPIException.Type.TIMEOUT, response);
+    }
+
+    @Override
+    public void onNoConnectionError(String response) {
+        onFailure(DjangoAPIException.Type.NO_CONNECTION, response);
+    }
+
+    @Override
+    public void onParseError(String response) {
+        onFailure(DjangoAPIException.Type.PARSE, response);
+    }
+
+    @Override
+    public void onMethodNotAllowedError(String message) {
+        onFailure(DjangoAPIException.Type.METHOD_NOT_ALLOWED, message);
+    }
+
+    @Override
+    public void onNotFoundError(String message) {
+        onFailure(DjangoAPIException.Type.NOT_FOUND, message);
+    }
+
+    @Override
+    public void onBadRequestError(String message) {
+        onFailure(DjangoAPIException.Type.BAD_REQUEST, message);
+    }
+
+    @Override
+    public void onBadRequestError(JSONObject response) {
+        onFailure(DjangoAPIException.Type.BAD_REQUEST, response);
+    }
+
+    @Override
+    public void onForbiddenError(String message) {
+        onFailure(DjangoAPIException.Type.FORBIDDEN, message);
+    }
+
+    @Override
+    public void onUnprocessableEntityError(String message) {
+        onFailure(DjangoAPIException.Type.UNPROCESSABLE_ENTITY, message);
+    }
+
+    @Override
+    public void onUnprocessableEntityError(JSONObject response) {
+        onFailure(DjangoAPIException.Type.UNPROCESSABLE_ENTITY, response);
+    }
+
+    @Override
+    public void onUnsupportedMediaTypeError(String message) {
+        onFailure(DjangoAPIException.Type.UNSUPPORTED_MEDIA_TYPE, message);
+    }
+
+    @Override
+    public void onNonJsonError(String response) {
+        onFailure(DjangoAPIException.Type.NON_JSON, response);
+    }
+
+    @Override
+    public void onDefaultJsonError(JSONObject response) {
+        onFailure(DjangoAPIException.Type.DEFAULT_JSON, response);
+    }
+
+    @Override
+    public void onDefaultHTMLError(String response) {
+        onFailure(DjangoAPIException.Type.DEFAULT_HTML, response);
+    }
+
+    @Override
+    public void onServerError(String response) {
+        onFailure(DjangoAPIException.Type.SERVER, response);
+    }
+
+    @Override
+    public void onDefaultError(String response) {
+        onFailure(DjangoAPIException.Type.DEFAULT, response);
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+
+import com.android.volley.RequestQueue;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Submits several {@link DjangoBaseRequest} at once and delivers a single combined result
+ * when all of them have finished.
+ *
+ * Each request still calls its own listener and {@link DjangoErrorListener}. The group
+ * listener is invoked afterwards, on the main thread:
+ * <pre>{@code
+ *     DjangoRequestGroup group = new DjangoRequestGroup(queue, new DjangoRequestGroup.Listener() {
+ *         public void onComplete(List<Object> responses, List<VolleyError> errors) {
+ *             JSONObject profile = (JSONObject) responses.get(0);
+ *             JSONArray orders = (JSONArray) responses.get(1);
+ *         }
+ *
+ *         public void onFailure(DjangoBaseRequest<?> request, VolleyError error) {
+ *             // Fail fast or deadline expired, remaining requests are cancelled
+ *         }
+ *     });
+ *     group.setFailFast(true);
+ *     group.setDeadline(10000);
+ *     group.add(profileRequest);
+ *     group.add(ordersRequest);
+ *     group.start();
+ * }</pre>
+ *
+ * Calling {@link #cancel()}, e.g. when the screen is closed, cancels every request in the
+ * group and suppresses the group callback. A request cancelled on its own, e.g. by
+ * {@link DjangoRequestLifecycle}, counts as failed.
+ */
+public class DjangoRequestGroup {
+
+    /**
+     * Receives the combined result of a {@link DjangoRequestGroup}.
+     */
+    public interface Listener {
+
+        /**
+         * Called once every request has finished.
+         *
+         * @param responses parsed responses in the order requests were added,
+         *                  null at positions that failed
+         * @param errors errors in the order requests were added, null at positions that succeeded.
+         *               Only contains errors when fail fast is disabled.
+         */
+        void onComplete(List<Object> responses, List<VolleyError> errors);
+
+        /**
+         * Called when a request fails under fail fast, or when the deadline expires.
+         * All requests that have not finished yet are cancelled.
+         *
+         * @param request the request that failed, null if the deadline expired
+         * @param error the error that ended the group
+         */
+        void onFailure(@Nullable DjangoBaseRequest<?> request, VolleyError error);
+    }
+
+    private final RequestQueue queue;
+    private final Listener listener;
+    private final List<DjangoBaseRequest<?>> requests = new ArrayList<>();
+    private final Executor delivery;
+    private Handler handler;
+
+    private volatile boolean failFast = true;
+    private volatile long deadline = 0;
+
+    private Object[] responses;
+    private VolleyError[] errors;
+    private boolean[] done;
+    private int pending;
+    private boolean started;
+    private boolean finished;
+    private boolean cancelled;
+
+    private final Runnable deadlineExpired = new Runnable() {
+        @Override
+        public void run() {
+            fail(null, new TimeoutError());
+        }
+    };
+
+    /**
+     * @param queue {@link RequestQueue} to which requests are added
+     * @param listener receives the combined result
+     */
+    public DjangoRequestGroup(RequestQueue queue, Listener listener) {
+        this(queue, listener, new Executor() {
+            private final Handler main = new Handler(Looper.getMainLooper());
+
+            @Override
+            public void execute(Runnable command) {
+                main.post(command);
+            }
+        });
+    }
+
+    /**
+     * @param delivery runs group callbacks, the main thread by default
+     */
+    DjangoRequestGroup(RequestQueue queue, Listener listener, Executor delivery) {
+        this.queue = queue;
+        this.listener = listener;
+        this.delivery = delivery;
+    }
+
+    /**
+     * @param failFast when true (default), the first error cancels the remaining requests
+     *                 and invokes {@link Listener#onFailure}. Otherwise the group waits for
+     *                 every request and reports errors in {@link Listener#onComplete}.
+     */
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    /**
+     * @param deadline overall time in milliseconds for all requests to finish,
+     *                 0 (default) for no deadline
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Adds a request to the group. Must be called before {@link #start()}.
+     *
+     * @param request a {@link DjangoBaseRequest} that has not been added to a queue
+     * @param <T> response format of request
+     * @return position of the request in the combined result
+     */
+    public synchronized <T> int add(DjangoBaseRequest<T> request) {
+        if (started)
+            throw new IllegalStateException("Requests can not be added after start().");
+
+        final int index = requests.size();
+        requests.add(request);
+        request.addResultObserver(new DjangoBaseRequest.ResultObserver<T>() {
+            @Override
+            public void onResult(DjangoBaseRequest<T> request, T response) {
+                succeed(index, response);
+            }
+
+            @Override
+            public void onError(DjangoBaseRequest<T> request, VolleyError error) {
+                failed(index, error);
+            }
+        });
+        // Decides the outcome of requests cancelled before they got a result, including
+        // ones never dispatched, which Volley doesn't report as finished
+        request.addCancelListener(new DjangoBaseRequest.CancelListener() {
+            @Override
+            public void onCancel(DjangoBaseRequest<?> request) {
+                failed(index, new VolleyError("Request was cancelled before it finished."));
+            }
+        });
+        return index;
+    }
+
+    /**
+     * Adds every request of the group to the queue in one go.
+     */
+    public void start() {
+        synchronized (this) {
+            if (started)
+                throw new IllegalStateException("Group has already been started.");
+            started = true;
+
+            pending = requests.size();
+            responses = new Object[pending];
+            errors = new VolleyError[pending];
+            done = new boolean[pending];
+
+            if (pending == 0) {
+                finished = true;
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onComplete(Collections.emptyList(), Collections.<VolleyError>emptyList());
+                    }
+                });
+                return;
+            }
+
+            if (deadline > 0) {
+                handler = new Handler(Looper.getMainLooper());
+                handler.postDelayed(deadlineExpired, deadline);
+            }
+        }
+
+        for (DjangoBaseRequest<?> request : requests) {
+            queue.add(request);
+        }
+    }
+
+    /**
+     * Cancels every request in the group. No group callback is invoked afterwards,
+     * including one that is already waiting to be delivered.
+     */
+    public void cancel() {
+        synchronized (this) {
+            cancelled = true;
+            if (finished)
+                return;
+            finished = true;
+        }
+        cancelRequests();
+    }
+
+    /**
+     * @return true if the group has delivered its result or has been cancelled
+     */
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    private void succeed(int index, Object response) {
+        synchronized (this) {
+            if (finished || done[index])
+                return;
+            done[index] = true;
+            responses[index] = response;
+            if (--pending > 0)
+                return;
+            finished = true;
+        }
+        complete();
+    }
+
+    private void failOne(int index, VolleyError error) {
+        synchronized (this) {
+            if (finished || done[index])
+                return;
+            done[index] = true;
+            errors[index] = error;
+            if (--pending > 0)
+                return;
+            finished = true;
+        }
+        complete();
+    }
+
+    private void fail(@Nullable final DjangoBaseRequest<?> request, final VolleyError error) {
+        synchronized (this) {
+            if (finished)
+                return;
+            finished = true;
+        }
+        cancelRequests();
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                listener.onFailure(request, error);
+            }
+        });
+    }
+
+    private void failed(int index, VolleyError error) {
+        synchronized (this) {
+            // Cancelled by the group itself, or after its result was delivered
+            if (!started || finished || done[index])
+                return;
+        }
+        if (failFast)
+            fail(requests.get(index), error);
+        else
+            failOne(index, error);
+    }
+
+    private void complete() {
+        removeDeadline();
+        deliver(new Runnable() {
+            @Override
+            public void run() {
+                listener.onComplete(Arrays.asList(responses), Arrays.asList(errors));
+            }
+        });
+    }
+
+    /**
+     * Invokes the group listener on the main thread, outside of the group lock, unless the
+     * group is cancelled in the meantime.
+     */
+    private void deliver(final Runnable callback) {
+        delivery.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (DjangoRequestGroup.this) {
+                    if (cancelled)
+                        return;
+                }
+                callback.run();
+            }
+        });
+    }
+
+    private synchronized void removeDeadline() {
+        if (handler != null)
+            handler.removeCallbacks(deadlineExpired);
+    }
+
+    private void cancelRequests() {
+        removeDeadline();
+        for (DjangoBaseRequest<?> request : requests) {
+            request.cancel();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+
+import com.android.volley.Request;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Cancels requests when the Activity that created them is destroyed, so that an abandoned
+ * screen doesn't keep downloading, parsing or holding on to its views:
+ * <pre>{@code
+ *     DjangoJSONObjectRequest request = new DjangoJSONObjectRequest(url, null, listener, errorListener, this);
+ *     DjangoRequestLifecycle.bind(this, request);
+ *     queue.add(request);
+ * }</pre>
+ *
+ * A cancelled request is dropped before it is sent if it is still queued, otherwise before its
+ * response is parsed, and its listeners are never called. The Activity is only weakly referenced.
+ *
+ * An Activity destroyed for a configuration change, e.g. a rotation, is recreated right away,
+ * so its requests are left running by default and are no longer bound to it. Set
+ * {@link #cancelOnConfigurationChange} if their listeners can't reach the new Activity.
+ */
+public final class DjangoRequestLifecycle implements Application.ActivityLifecycleCallbacks {
+
+    private static final DjangoRequestLifecycle instance = new DjangoRequestLifecycle();
+
+    public static boolean cancelOnConfigurationChange = false;
+
+    private final Map<Activity, Set<Request<?>>> requests = new WeakHashMap<>();
+    private final Set<Application> registered = Collections.newSetFromMap(new WeakHashMap<Application, Boolean>());
+
+    private DjangoRequestLifecycle() {}
+
+    /**
+     * @return the callbacks registered with the Application of bound activities
+     */
+    static DjangoRequestLifecycle getInstance() {
+        return instance;
+    }
+
+    /**
+     * Cancels request once activity is destroyed. Cancels it right away if activity is
+     * already finishing.
+     *
+     * @param activity Activity that owns the request
+     * @param request any Volley request
+     */
+    public static void bind(Activity activity, Request<?> request) {
+        instance.add(activity, request);
+    }
+
+    /**
+     * Cancels every request bound to activity that hasn't finished yet.
+     *
+     * @param activity Activity that owns the requests
+     */
+    public static void cancelAll(Activity activity) {
+        instance.cancel(activity);
+    }
+
+    private void add(Activity activity, final Request<?> request) {
+        if (activity.isFinishing()) {
+            request.cancel();
+            return;
+        }
+
+        synchronized (this) {
+            Application application = activity.getApplication();
+            if (application != null && registered.add(application))
+                application.registerActivityLifecycleCallbacks(this);
+
+            Set<Request<?>> owned = requests.get(activity);
+            if (owned == null) {
+                owned = Collections.newSetFromMap(new WeakHashMap<Request<?>, Boolean>());
+                requests.put(activity, owned);
+            }
+            owned.add(request);
+        }
+    }
+
+    private void cancel(Activity activity) {
+        List<Request<?>> owned = release(activity);
+        if (owned == null)
+            return;
+        for (Request<?> request : owned) {
+            if (request != null)
+                request.cancel();
+        }
+    }
+
+    private synchronized List<Request<?>> release(Activity activity) {
+        Set<Request<?>> set = requests.remove(activity);
+        return set == null ? null : new ArrayList<>(set);
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+        if (activity.isChangingConfigurations() && !cancelOnConfigurationChange)
+            release(activity);
+        else
+            cancel(activity);
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+
+    @Override
+    public void onActivityStarted(Activity activity) {}
+
+    @Override
+    public void onActivityResumed(Activity activity) {}
+
+    @Override
+    public void onActivityPaused(Activity activity) {}
+
+    @Override
+    public void onActivityStopped(Activity activity) {}
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Limits how many requests are in flight to a single host and releases waiting requests by
+ * {@link Request.Priority}, highest first, in the order they were added otherwise.
+ *
+ * The last slots of every host are reserved for HIGH and IMMEDIATE requests, so prefetch and
+ * telemetry can never hold up the request the user is waiting on:
+ * <pre>{@code
+ *     DjangoRequestScheduler scheduler = new DjangoRequestScheduler(queue);
+ *     prefetch.setPriority(Request.Priority.LOW);
+ *     scheduler.add(prefetch);
+ *     detail.setPriority(Request.Priority.HIGH);
+ *     scheduler.add(detail);
+ * }</pre>
+ *
+ * Requests that are waiting here are not in the RequestQueue yet, so use
+ * {@link #cancelAll(Object)} instead of {@link RequestQueue#cancelAll(Object)}.
+ */
+public class DjangoRequestScheduler {
+
+    public static final int DEFAULT_MAX_PER_HOST = 4;
+    public static final int DEFAULT_RESERVED_FOR_HIGH = 1;
+
+    private final RequestQueue queue;
+    private final RequestQueue.RequestFinishedListener<Object> finishedListener =
+            new RequestQueue.RequestFinishedListener<Object>() {
+                @Override
+                public void onRequestFinished(Request<Object> request) {
+                    finished(request);
+                }
+            };
+
+    private boolean detached = false;
+    private int maxPerHost = DEFAULT_MAX_PER_HOST;
+    private int reservedForHigh = DEFAULT_RESERVED_FOR_HIGH;
+    private long sequence = 0;
+
+    private final Map<String, Integer> inFlight = new HashMap<>();
+    private final Map<Request<?>, String> running = new IdentityHashMap<>();
+    private final Map<String, PriorityQueue<Waiting>> waiting = new HashMap<>();
+
+    /**
+     * @param queue RequestQueue to which requests are released
+     */
+    public DjangoRequestScheduler(RequestQueue queue) {
+        this.queue = queue;
+        queue.addRequestFinishedListener(finishedListener);
+    }
+
+    /**
+     * Stops listening to the RequestQueue, so that a scheduler outlived by its queue can be
+     * garbage collected. Waiting requests are cancelled, requests in flight keep running.
+     * The scheduler can't be used afterwards. Must not be called from a
+     * {@link RequestQueue.RequestFinishedListener}.
+     */
+    public void release() {
+        synchronized (this) {
+            if (detached)
+                return;
+            detached = true;
+            for (PriorityQueue<Waiting> hostQueue : waiting.values()) {
+                for (Waiting item : hostQueue)
+                    item.request.cancel();
+            }
+            waiting.clear();
+            running.clear();
+            inFlight.clear();
+        }
+        queue.removeRequestFinishedListener(finishedListener);
+    }
+
+    /**
+     * Waiting requests that fit in the new limit are sent right away.
+     *
+     * @param maxPerHost maximum number of requests in flight to a single host
+     */
+    public void setMaxPerHost(int maxPerHost) {
+        List<Request<?>> released = new ArrayList<>();
+        synchronized (this) {
+            this.maxPerHost = Math.max(1, maxPerHost);
+            drainAll(released);
+        }
+        send(released);
+    }
+
+    /**
+     * Waiting requests that fit in the new limit are sent right away.
+     *
+     * @param reservedForHigh number of slots per host that LOW and NORMAL requests can't take
+     */
+    public void setReservedForHigh(int reservedForHigh) {
+        List<Request<?>> released = new ArrayList<>();
+        synchronized (this) {
+            this.reservedForHigh = Math.max(0, reservedForHigh);
+            drainAll(released);
+        }
+        send(released);
+    }
+
+    /**
+     * Sends request right away if its host has a free slot for its priority, otherwise holds
+     * it until one frees up.
+     *
+     * @param request any Volley request, use {@link DjangoBaseRequest#setPriority} to set
+     *                its priority
+     * @throws IllegalStateException if the scheduler has been released
+     */
+    public void add(Request<?> request) {
+        String host = getHost(request);
+        synchronized (this) {
+            if (detached)
+                throw new IllegalStateException("Scheduler has been released.");
+            if (!hasSlot(host, request.getPriority())) {
+                PriorityQueue<Waiting> hostQueue = waiting.get(host);
+                if (hostQueue == null) {
+                    hostQueue = new PriorityQueue<>();
+                    waiting.put(host, hostQueue);
+                }
+                hostQueue.add(new Waiting(request, sequence++));
+                return;
+            }
+            start(host, request);
+        }
+        queue.add(request);
+    }
+
+    /**
+     * Cancels requests with the given tag, both waiting here and in the RequestQueue.
+     *
+     * @param tag tag set with {@link Request#setTag(Object)}
+     */
+    public void cancelAll(Object tag) {
+        synchronized (this) {
+            for (PriorityQueue<Waiting> hostQueue : waiting.values()) {
+                Iterator<Waiting> iterator = hostQueue.iterator();
+                while (iterator.hasNext()) {
+                    Request<?> request = iterator.next().request;
+                    if (tag.equals(request.getTag())) {
+                        request.cancel();
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+        queue.cancelAll(tag);
+    }
+
+    /**
+     * @param host host name, as in the URL of requests
+     * @return number of requests to host that wait for a free slot
+     */
+    public synchronized int getWaitingCount(String host) {
+        PriorityQueue<Waiting> hostQueue = waiting.get(host);
+        return hostQueue == null ? 0 : hostQueue.size();
+    }
+
+    /**
+     * @param host host name, as in the URL of requests
+     * @return number of requests to host that have been sent and not finished yet
+     */
+    public synchronized int getInFlightCount(String host) {
+        Integer count = inFlight.get(host);
+        return count == null ? 0 : count;
+    }
+
+    private boolean hasSlot(String host, Request.Priority priority) {
+        int limit = maxPerHost;
+        if (priority != Request.Priority.HIGH && priority != Request.Priority.IMMEDIATE)
+            limit = Math.max(1, maxPerHost - reservedForHigh);
+        return getInFlightCount(host) < limit;
+    }
+
+    private void start(String host, Request<?> request) {
+        running.put(request, host);
+        inFlight.put(host, getInFlightCount(host) + 1);
+    }
+
+    private void finished(Request<?> request) {
+        List<Request<?>> released = new ArrayList<>();
+        synchronized (this) {
+            String host = running.remove(request);
+            if (host == null)
+                return;
+            int count = getInFlightCount(host) - 1;
+            if (count > 0)
+                inFlight.put(host, count);
+            else
+                inFlight.remove(host);
+            drain(host, released);
+        }
+        send(released);
+    }
+
+    private void drainAll(List<Request<?>> released) {
+        for (String host : new ArrayList<>(waiting.keySet()))
+            drain(host, released);
+    }
+
+    /**
+     * Starts waiting requests of host, highest priority first, while it has a slot for them.
+     */
+    private void drain(String host, List<Request<?>> released) {
+        PriorityQueue<Waiting> hostQueue = waiting.get(host);
+        while (hostQueue != null && !hostQueue.isEmpty()) {
+            Waiting head = hostQueue.peek();
+            if (head.request.isCanceled()) {
+                hostQueue.poll();
+                continue;
+            }
+            if (!hasSlot(host, head.request.getPriority()))
+                break;
+            hostQueue.poll();
+            start(host, head.request);
+            released.add(head.request);
+        }
+        if (hostQueue != null && hostQueue.isEmpty())
+            waiting.remove(host);
+    }
+
+    /**
+     * Adds released requests to the RequestQueue, outside of the scheduler lock.
+     */
+    private void send(List<Request<?>> released) {
+        for (Request<?> request : released)
+            queue.add(request);
+    }
+
+    private static String getHost(Request<?> request) {
+        try {
+            return new URL(request.getUrl()).getHost();
+        } catch (MalformedURLException e) {
+            return "";
+        }
+    }
+
+    private static class Waiting implements Comparable<Waiting> {
+
+        final Request<?> request;
+        final long sequence;
+
+        Waiting(Request<?> request, long sequence) {
+            this.request = request;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Waiting other) {
+            int byPriority = other.request.getPriority().compareTo(request.getPriority());
+            if (byPriority != 0)
+                return byPriority;
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+}
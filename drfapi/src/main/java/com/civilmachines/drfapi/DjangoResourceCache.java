@@ -0,0 +1,599 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps objects of a Django REST Framework list endpoint in a local SQLite table, keyed by
+ * primary key, so that list screens can be served locally while a refresh runs.
+ *
+ * Declared fields are copied into their own indexed columns and can be used in
+ * {@link #query(Map, String, String)}, which mirrors DRF's {@code ?search=} and
+ * {@code ?ordering=} semantics. Related fields are declared with DRF's lookup syntax,
+ * e.g. {@code owner__name} for {@code {"owner": {"name": ...}}}.
+ * <pre>{@code
+ *     DjangoResourceCache cache = new DjangoResourceCache(context, "tasks", "id", "title", "status", "modified");
+ *
+ *     DjangoJSONArrayResponseRequest request = new DjangoJSONArrayResponseRequest(url, null, listener, errorListener, context);
+ *     request.setResourceCache(cache);
+ *
+ *     // Off the main thread
+ *     JSONArray open = cache.query(Collections.singletonMap("status", "open"), "report", "-modified");
+ * }</pre>
+ *
+ * Objects are kept per {@link DjangoSession}, in a database of their own, so that accounts
+ * never see each other's objects. Requests without a session share a default database.
+ *
+ * All methods access the database and should be called off the main thread.
+ */
+public class DjangoResourceCache {
+
+    private static final String COLUMN_PK = "_pk";
+    private static final String COLUMN_JSON = "_json";
+    private static final String COLUMN_UPDATED = "_updated";
+    private static final String FIELD_PREFIX = "f_";
+
+    // Fields declared for each table in this process, to catch conflicting declarations
+    private static final Map<String, Set<String>> declarations = new HashMap<>();
+
+    private final String table;
+    private final String primaryKey;
+    private final List<String> fields;
+    private final Set<String> searchFields;
+    private final CacheDatabase database;
+
+    private volatile boolean tableReady = false;
+
+    /**
+     * Creates a cache for the session that is current, like requests do.
+     *
+     * @param cont any context
+     * @param resource name of resource, such as "tasks". Every resource has its own table.
+     * @param primaryKey field holding the primary key of each object
+     * @param fields fields that can be filtered, searched and ordered on
+     */
+    public DjangoResourceCache(Context cont, String resource, String primaryKey, String... fields) {
+        this(cont, DjangoSession.getCurrent(), resource, primaryKey, fields);
+    }
+
+    /**
+     * @param cont any context
+     * @param session session whose objects are cached, null for requests without a session
+     * @param resource name of resource, such as "tasks". Every resource has its own table.
+     * @param primaryKey field holding the primary key of each object
+     * @param fields fields that can be filtered, searched and ordered on
+     * @throws IllegalStateException if the resource has been declared with other fields
+     */
+    public DjangoResourceCache(Context cont, @Nullable DjangoSession session, String resource,
+                               String primaryKey, String... fields) {
+        this.database = CacheDatabase.getInstance(cont, session == null ? null : session.getName());
+        this.table = "resource_" + sanitize(resource);
+        this.primaryKey = primaryKey;
+        this.fields = Collections.unmodifiableList(Arrays.asList(fields));
+        this.searchFields = new LinkedHashSet<>(this.fields);
+        declare(database.getDatabaseName() + "/" + table, primaryKey, this.fields);
+    }
+
+    /**
+     * Two caches of one resource with different fields would keep rebuilding its table.
+     */
+    private static void declare(String key, String primaryKey, List<String> fields) {
+        Set<String> declared = new HashSet<>(fields);
+        declared.add("pk=" + primaryKey);
+        synchronized (declarations) {
+            Set<String> existing = declarations.get(key);
+            if (existing == null)
+                declarations.put(key, declared);
+            else if (!existing.equals(declared))
+                throw new IllegalStateException(key + " is already declared with fields " + existing
+                        + ", can't declare it with " + declared + ".");
+        }
+    }
+
+    /**
+     * Limits {@code ?search=} to some of the declared fields, like DRF's {@code fieldsToSearch}.
+     * All declared fields are searched by default.
+     *
+     * @param fields declared fields to search in
+     */
+    public void setSearchFields(String... fields) {
+        Set<String> search = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (!this.fields.contains(field))
+                throw new IllegalArgumentException(field + " is not a declared field.");
+            search.add(field);
+        }
+        synchronized (searchFields) {
+            searchFields.clear();
+            searchFields.addAll(search);
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9_]", "_");
+    }
+
+    private static String column(String field) {
+        return FIELD_PREFIX + sanitize(field);
+    }
+
+    /**
+     * Creates table and indexes on first use. A table created with fewer fields, e.g. by an
+     * older version of the app, gets the missing columns filled in from the stored objects.
+     * Columns of fields no longer declared are left unused.
+     */
+    private SQLiteDatabase open() {
+        SQLiteDatabase db = database.getWritableDatabase();
+        if (tableReady)
+            return db;
+
+        synchronized (this) {
+            if (tableReady)
+                return db;
+
+            Set<String> expected = new HashSet<>();
+            expected.add(COLUMN_PK);
+            expected.add(COLUMN_JSON);
+            expected.add(COLUMN_UPDATED);
+            for (String field : fields) {
+                expected.add(column(field));
+            }
+
+            Set<String> existing = new HashSet<>();
+            Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+            try {
+                while (cursor.moveToNext()) {
+                    existing.add(cursor.getString(cursor.getColumnIndex("name")));
+                }
+            } finally {
+                cursor.close();
+            }
+
+            if (!existing.isEmpty() && existing.containsAll(Arrays.asList(COLUMN_PK, COLUMN_JSON, COLUMN_UPDATED))) {
+                Set<String> missing = new LinkedHashSet<>();
+                for (String field : fields) {
+                    if (!existing.contains(column(field)))
+                        missing.add(field);
+                }
+                if (!missing.isEmpty())
+                    migrate(db, missing);
+            } else {
+                db.beginTransaction();
+                try {
+                    db.execSQL("DROP TABLE IF EXISTS " + table);
+
+                    StringBuilder create = new StringBuilder("CREATE TABLE ").append(table)
+                            .append(" (").append(COLUMN_PK).append(" TEXT PRIMARY KEY, ")
+                            .append(COLUMN_JSON).append(" TEXT NOT NULL, ")
+                            .append(COLUMN_UPDATED).append(" INTEGER NOT NULL");
+                    for (String field : fields) {
+                        // No declared type, so values keep SQLite's numeric or text affinity
+                        create.append(", ").append(column(field));
+                    }
+                    db.execSQL(create.append(")").toString());
+
+                    for (String field : fields) {
+                        db.execSQL("CREATE INDEX " + table + "_" + column(field)
+                                + " ON " + table + " (" + column(field) + ")");
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+            tableReady = true;
+        }
+        return db;
+    }
+
+    /**
+     * Adds columns for newly declared fields and fills them from the stored objects.
+     */
+    private void migrate(SQLiteDatabase db, Set<String> missing) {
+        db.beginTransaction();
+        try {
+            for (String field : missing) {
+                db.execSQL("ALTER TABLE " + table + " ADD COLUMN " + column(field));
+                db.execSQL("CREATE INDEX IF NOT EXISTS " + table + "_" + column(field)
+                        + " ON " + table + " (" + column(field) + ")");
+            }
+
+            StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+            List<String> columns = new ArrayList<>(missing);
+            for (int i = 0; i < columns.size(); i++) {
+                sql.append(i > 0 ? ", " : "").append(column(columns.get(i))).append(" = ?");
+            }
+            sql.append(" WHERE ").append(COLUMN_PK).append(" = ?");
+            SQLiteStatement statement = db.compileStatement(sql.toString());
+
+            Cursor cursor = db.query(table, new String[]{COLUMN_PK, COLUMN_JSON}, null, null, null, null, null);
+            try {
+                while (cursor.moveToNext()) {
+                    JSONObject object;
+                    try {
+                        object = new JSONObject(cursor.getString(1));
+                    } catch (JSONException e) {
+                        continue;
+                    }
+                    statement.clearBindings();
+                    for (int i = 0; i < columns.size(); i++) {
+                        bind(statement, i + 1, lookup(object, columns.get(i)));
+                    }
+                    statement.bindString(columns.size() + 1, cursor.getString(0));
+                    statement.executeUpdateDelete();
+                }
+            } finally {
+                cursor.close();
+                statement.close();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Inserts or replaces objects by primary key, all inside one transaction.
+     * Objects without primary key are skipped.
+     *
+     * @param objects list of objects as received from API
+     * @return number of objects stored
+     * @throws JSONException if list contains something other than objects
+     */
+    public int upsert(JSONArray objects) throws JSONException {
+        SQLiteDatabase db = open();
+        int count;
+        db.beginTransaction();
+        try {
+            count = store(db, objects, null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return count;
+    }
+
+    /**
+     * Replaces every cached object with the given ones, all inside one transaction, so that
+     * objects deleted on the server are removed as well. Only pass complete lists, such as
+     * an unfiltered and unpaginated response, since any object missing from them is removed.
+     *
+     * @param objects every object of the resource, as received from API
+     * @return number of objects stored
+     * @throws JSONException if list contains something other than objects
+     */
+    public int replace(JSONArray objects) throws JSONException {
+        SQLiteDatabase db = open();
+        int count;
+        db.beginTransaction();
+        try {
+            Set<String> stored = new HashSet<>();
+            count = store(db, objects, stored);
+
+            List<String> removed = new ArrayList<>();
+            Cursor cursor = db.query(table, new String[]{COLUMN_PK}, null, null, null, null, null);
+            try {
+                while (cursor.moveToNext()) {
+                    if (!stored.contains(cursor.getString(0)))
+                        removed.add(cursor.getString(0));
+                }
+            } finally {
+                cursor.close();
+            }
+            remove(db, removed);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return count;
+    }
+
+    /**
+     * Writes objects inside the caller's transaction.
+     *
+     * @param stored receives primary keys of stored objects, may be null
+     */
+    private int store(SQLiteDatabase db, JSONArray objects, @Nullable Set<String> stored) throws JSONException {
+        StringBuilder sql = new StringBuilder("INSERT OR REPLACE INTO ").append(table)
+                .append(" (").append(COLUMN_PK).append(", ").append(COLUMN_JSON)
+                .append(", ").append(COLUMN_UPDATED);
+        for (String field : fields) {
+            sql.append(", ").append(column(field));
+        }
+        sql.append(") VALUES (?, ?, ?");
+        for (int i = 0; i < fields.size(); i++) {
+            sql.append(", ?");
+        }
+        sql.append(")");
+
+        int count = 0;
+        long now = System.currentTimeMillis();
+        SQLiteStatement statement = db.compileStatement(sql.toString());
+        try {
+            for (int i = 0; i < objects.length(); i++) {
+                JSONObject object = objects.getJSONObject(i);
+                Object pk = object.opt(primaryKey);
+                if (pk == null || pk == JSONObject.NULL)
+                    continue;
+
+                statement.clearBindings();
+                statement.bindString(1, pk.toString());
+                statement.bindString(2, object.toString());
+                statement.bindLong(3, now);
+                for (int j = 0; j < fields.size(); j++) {
+                    bind(statement, j + 4, lookup(object, fields.get(j)));
+                }
+                statement.executeInsert();
+                if (stored != null)
+                    stored.add(pk.toString());
+                count++;
+            }
+        } finally {
+            statement.close();
+        }
+        return count;
+    }
+
+    /**
+     * Deletes objects inside the caller's transaction.
+     */
+    private int remove(SQLiteDatabase db, Collection<?> primaryKeys) {
+        int count = 0;
+        SQLiteStatement statement = db.compileStatement(
+                "DELETE FROM " + table + " WHERE " + COLUMN_PK + " = ?");
+        try {
+            for (Object pk : primaryKeys) {
+                statement.bindString(1, pk.toString());
+                count += statement.executeUpdateDelete();
+            }
+        } finally {
+            statement.close();
+        }
+        return count;
+    }
+
+    /**
+     * Removes objects by primary key, inside one transaction.
+     *
+     * @param primaryKeys primary keys of objects to remove
+     * @return number of objects removed
+     */
+    public int delete(Collection<?> primaryKeys) {
+        SQLiteDatabase db = open();
+        int count;
+        db.beginTransaction();
+        try {
+            count = remove(db, primaryKeys);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return count;
+    }
+
+    /**
+     * Removes every object of this resource.
+     */
+    public void clear() {
+        open().delete(table, null, null);
+    }
+
+    /**
+     * @param primaryKey primary key of object
+     * @return stored object, null if not cached
+     * @throws JSONException if stored object can't be parsed
+     */
+    @Nullable
+    public JSONObject get(Object primaryKey) throws JSONException {
+        Cursor cursor = open().query(table, new String[]{COLUMN_JSON},
+                COLUMN_PK + " = ?", new String[]{primaryKey.toString()}, null, null, null);
+        try {
+            return cursor.moveToFirst() ? new JSONObject(cursor.getString(0)) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @return number of cached objects
+     */
+    public long count() {
+        SQLiteStatement statement = open().compileStatement("SELECT COUNT(*) FROM " + table);
+        try {
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Queries cached objects the way DRF filters a list.
+     *
+     * @param filters exact match on declared fields, like DRF's {@code filterset_fields}.
+     *                Numbers must be passed as {@link Number} to match numeric values.
+     * @param search {@code ?search=} value: terms separated by spaces or commas, every term
+     *               must be contained (case insensitive) in at least one search field
+     * @param ordering {@code ?ordering=} value: comma separated declared fields, prefixed
+     *                 with "-" for descending order. Unknown fields are ignored, as DRF does.
+     * @return matching objects
+     * @throws JSONException if stored object can't be parsed
+     */
+    public JSONArray query(@Nullable Map<String, ?> filters, @Nullable String search,
+                           @Nullable String ordering) throws JSONException {
+        StringBuilder where = new StringBuilder();
+        List<String> args = new ArrayList<>();
+
+        if (filters != null) {
+            for (Map.Entry<String, ?> filter : filters.entrySet()) {
+                if (!fields.contains(filter.getKey()))
+                    throw new IllegalArgumentException(filter.getKey() + " is not a declared field.");
+                appendCondition(where);
+                if (filter.getValue() == null) {
+                    where.append(column(filter.getKey())).append(" IS NULL");
+                } else {
+                    Object value = filter.getValue();
+                    if (value instanceof Boolean)
+                        value = (Boolean) value ? 1 : 0;
+                    // Arguments are bound as text, which would never equal a numeric value
+                    where.append(column(filter.getKey())).append(value instanceof Number ? " = CAST(? AS NUMERIC)" : " = ?");
+                    args.add(value.toString());
+                }
+            }
+        }
+
+        List<String> fieldsToSearch;
+        synchronized (searchFields) {
+            fieldsToSearch = new ArrayList<>(searchFields);
+        }
+        if (search != null && !fieldsToSearch.isEmpty()) {
+            for (String term : search.replace('\u0000', ' ').replace(',', ' ').trim().split("\\s+")) {
+                if (term.isEmpty())
+                    continue;
+                appendCondition(where);
+                where.append("(");
+                for (int i = 0; i < fieldsToSearch.size(); i++) {
+                    if (i > 0)
+                        where.append(" OR ");
+                    where.append(column(fieldsToSearch.get(i))).append(" LIKE ? ESCAPE '\\'");
+                    args.add("%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+                }
+                where.append(")");
+            }
+        }
+
+        StringBuilder order = new StringBuilder();
+        if (ordering != null) {
+            for (String term : ordering.split(",")) {
+                term = term.trim();
+                boolean descending = term.startsWith("-");
+                String field = descending ? term.substring(1) : term;
+                if (!fields.contains(field))
+                    continue;
+                if (order.length() > 0)
+                    order.append(", ");
+                order.append(column(field)).append(descending ? " DESC" : " ASC");
+            }
+        }
+
+        Cursor cursor = open().query(table, new String[]{COLUMN_JSON},
+                where.length() > 0 ? where.toString() : null,
+                args.toArray(new String[args.size()]),
+                null, null,
+                order.length() > 0 ? order.toString() : null);
+        JSONArray results = new JSONArray();
+        try {
+            while (cursor.moveToNext()) {
+                results.put(new JSONObject(cursor.getString(0)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return results;
+    }
+
+    private static void appendCondition(StringBuilder where) {
+        if (where.length() > 0)
+            where.append(" AND ");
+    }
+
+    /**
+     * Resolves a field in DRF lookup syntax, e.g. {@code owner__name}.
+     */
+    @Nullable
+    private static Object lookup(JSONObject object, String field) {
+        Object value = object;
+        for (String part : field.split("__")) {
+            if (!(value instanceof JSONObject))
+                return null;
+            value = ((JSONObject) value).opt(part);
+        }
+        return value == JSONObject.NULL ? null : value;
+    }
+
+    private static void bind(SQLiteStatement statement, int index, @Nullable Object value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else if (value instanceof Integer || value instanceof Long) {
+            statement.bindLong(index, ((Number) value).longValue());
+        } else if (value instanceof Number) {
+            statement.bindDouble(index, ((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            statement.bindLong(index, (Boolean) value ? 1 : 0);
+        } else {
+            statement.bindString(index, value.toString());
+        }
+    }
+
+    /**
+     * Database shared by every resource of a session. Tables are created by
+     * {@link DjangoResourceCache} on first use, so the schema version never changes.
+     */
+    static class CacheDatabase extends SQLiteOpenHelper {
+
+        private static final String NAME = "drfapi_cache";
+        private static final int VERSION = 1;
+
+        private static final Map<String, CacheDatabase> instances = new HashMap<>();
+
+        /**
+         * @param namespace name of session, null for requests without a session
+         */
+        static synchronized CacheDatabase getInstance(Context cont, @Nullable String namespace) {
+            String name = namespace == null ? NAME + ".db" : NAME + "_" + sanitize(namespace) + ".db";
+            CacheDatabase instance = instances.get(name);
+            if (instance == null) {
+                Context appContext = cont.getApplicationContext();
+                instance = new CacheDatabase(appContext != null ? appContext : cont, name);
+                instances.put(name, instance);
+            }
+            return instance;
+        }
+
+        private CacheDatabase(Context cont, String name) {
+            super(cont, name, null, VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        }
+    }
+}
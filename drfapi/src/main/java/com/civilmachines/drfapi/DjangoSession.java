@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An identity used to talk to a Django REST Framework backend: its token, how the token is
+ * sent and where data belonging to it is kept.
+ *
+ * Every {@link DjangoBaseRequest} picks up the current session when it is created and keeps
+ * it for its whole lifetime, so switching session doesn't affect requests in flight.
+ * A session can also be attached to a single request with
+ * {@link DjangoBaseRequest#setSession(DjangoSession)}:
+ * <pre>{@code
+ *     DjangoSession work = new DjangoSession(context, "work", "https://work.example.com",
+ *             "Authorization", "JWT ");
+ *     DjangoSession home = new DjangoSession(context, "home");
+ *
+ *     DjangoSession.switchTo(work);
+ *     queue.add(new DjangoJSONObjectRequest(work.url("/api/tasks/"), null, listener, errorListener, context));
+ * }</pre>
+ *
+ * Token of each session is stored in its own Shared Preference file, read once and kept in
+ * memory afterwards. When no session is current, requests fall back to
+ * {@link UserSharedPreferenceAdapter} and the static header settings of {@link DjangoBaseRequest}.
+ */
+public class DjangoSession {
+
+    private static final AtomicReference<DjangoSession> current = new AtomicReference<>();
+
+    private final String name;
+    private final String baseUrl;
+    private final String authorizationHeader;
+    private final String tokenPrefix;
+    private final String preferenceName;
+    private final Context context;
+    private final UserSharedPreferenceAdapter tokenStore;
+
+    private volatile boolean tokenLoaded = false;
+    private volatile String token;
+
+    /**
+     * Creates a session that sends its token like {@link DjangoBaseRequest} does by default.
+     *
+     * @param cont any context, application context is kept
+     * @param name unique name of session, used to namespace stored data
+     */
+    public DjangoSession(Context cont, String name) {
+        this(cont, name, null, DjangoBaseRequest.keyAuthorizationHeader, DjangoBaseRequest.keyTokenPrefix);
+    }
+
+    /**
+     * @param cont any context, application context is kept
+     * @param name unique name of session, used to namespace stored data
+     * @param baseUrl base URL of backend of this session, used by {@link #url(String)}
+     * @param authorizationHeader name of header carrying the token
+     * @param tokenPrefix prefix of token in header, such as "Bearer " or "Token "
+     */
+    public DjangoSession(Context cont, String name, @Nullable String baseUrl,
+                         String authorizationHeader, String tokenPrefix) {
+        Context appContext = cont.getApplicationContext();
+        this.context = appContext != null ? appContext : cont;
+        this.name = name;
+        this.baseUrl = baseUrl;
+        this.authorizationHeader = authorizationHeader;
+        this.tokenPrefix = tokenPrefix;
+        this.preferenceName = UserSharedPreferenceAdapter.userPrivate + "_" + name;
+        this.tokenStore = new UserSharedPreferenceAdapter(context, preferenceName);
+    }
+
+    /**
+     * Makes a session current. Requests created afterwards use it.
+     *
+     * @param session the session to use, null to fall back to {@link UserSharedPreferenceAdapter}
+     * @return the session that was current before
+     */
+    @Nullable
+    public static DjangoSession switchTo(@Nullable DjangoSession session) {
+        return current.getAndSet(session);
+    }
+
+    /**
+     * @return the current session, null if none
+     */
+    @Nullable
+    public static DjangoSession getCurrent() {
+        return current.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Nullable
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public String getAuthorizationHeader() {
+        return authorizationHeader;
+    }
+
+    public String getTokenPrefix() {
+        return tokenPrefix;
+    }
+
+    /**
+     * @return name of Shared Preference file holding data of this session
+     */
+    public String getPreferenceName() {
+        return preferenceName;
+    }
+
+    /**
+     * @param suffix appended to the namespace of this session
+     * @return a {@link SharedPreferenceAdapter} for data, such as cached API state,
+     *         that belongs to this session only
+     */
+    public SharedPreferenceAdapter getPreferences(String suffix) {
+        return new SharedPreferenceAdapter(context, preferenceName + "_" + suffix);
+    }
+
+    /**
+     * @param path path of endpoint, such as "/api/users/"
+     * @return path resolved against base URL of this session, path itself if there is none
+     */
+    public String url(String path) {
+        if (baseUrl == null)
+            return path;
+        if (baseUrl.endsWith("/") && path.startsWith("/"))
+            return baseUrl + path.substring(1);
+        if (!baseUrl.endsWith("/") && !path.startsWith("/"))
+            return baseUrl + "/" + path;
+        return baseUrl + path;
+    }
+
+    /**
+     * @return the token of this session, read from storage on first call only
+     */
+    @Nullable
+    public String getToken() {
+        if (!tokenLoaded) {
+            synchronized (this) {
+                if (!tokenLoaded) {
+                    token = tokenStore.getToken();
+                    tokenLoaded = true;
+                }
+            }
+        }
+        return token;
+    }
+
+    public synchronized boolean saveToken(@NonNull String token) {
+        this.token = token;
+        this.tokenLoaded = true;
+        return tokenStore.saveToken(token);
+    }
+
+    public boolean isLoggedIn() {
+        String value = getToken();
+        return value != null && value.length() > 10;
+    }
+
+    /**
+     * Removes the token and every other value kept in the token file of this session.
+     */
+    public synchronized void logOut() {
+        token = null;
+        tokenLoaded = true;
+        tokenStore.logOut();
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.support.annotation.Nullable;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Builds URLs of Django REST Framework endpoints with field selection, filters, search,
+ * ordering and pagination parameters.
+ *
+ * The result is canonical: parameters are sorted by name, and field lists and values of
+ * parameters given several times are sorted and free of duplicates, so that the same query
+ * built at different places gives the same URL, and thus the same cache key. Ordering keeps
+ * the order it was given in, as it is significant.
+ * <pre>{@code
+ *     String url = new DjangoURLBuilder("https://example.com/api/")
+ *             .path("orders")
+ *             .fields("id", "total", "customer")
+ *             .expand("customer")
+ *             .filter("status", "paid")
+ *             .ordering("-created")
+ *             .page(2)
+ *             .build();
+ *     // https://example.com/api/orders/?expand=customer&fields=customer,id,total&ordering=-created&page=2&status=paid
+ * }</pre>
+ *
+ * Names of parameters follow DRF and drf-flex-fields defaults. Change the static variables
+ * if the backend uses other names.
+ */
+public class DjangoURLBuilder {
+
+    public static String keyFields = "fields";
+    public static String keyOmit = "omit";
+    public static String keyExpand = "expand";
+    public static String keySearch = "search";
+    public static String keyOrdering = "ordering";
+    public static String keyPage = "page";
+    public static String keyPageSize = "page_size";
+    public static String keyLimit = "limit";
+    public static String keyOffset = "offset";
+
+    private static final String CHARSET = "UTF-8";
+
+    private final StringBuilder path;
+    private final Map<String, List<String>> parameters = new TreeMap<>();
+    private final Set<String> fields = new TreeSet<>();
+    private final Set<String> omit = new TreeSet<>();
+    private final Set<String> expand = new TreeSet<>();
+    private final Set<String> ordering = new LinkedHashSet<>();
+
+    /**
+     * @param url base URL, may already contain a query string
+     */
+    public DjangoURLBuilder(String url) {
+        String query = null;
+        int start = url.indexOf('?');
+        if (start >= 0) {
+            query = url.substring(start + 1);
+            url = url.substring(0, start);
+        }
+        this.path = new StringBuilder(url);
+
+        if (query != null && !query.isEmpty()) {
+            for (String pair : query.split("&")) {
+                if (pair.isEmpty())
+                    continue;
+                int equals = pair.indexOf('=');
+                String name = decode(equals < 0 ? pair : pair.substring(0, equals));
+                String value = equals < 0 ? "" : decode(pair.substring(equals + 1));
+                if (name.equals(keyFields))
+                    fields(value.split(","));
+                else if (name.equals(keyOmit))
+                    omit(value.split(","));
+                else if (name.equals(keyExpand))
+                    expand(value.split(","));
+                else if (name.equals(keyOrdering))
+                    ordering(value.split(","));
+                else
+                    addParameter(name, value);
+            }
+        }
+    }
+
+    /**
+     * @param session session whose base URL is used
+     * @param path path of endpoint, such as "/api/users/"
+     */
+    public DjangoURLBuilder(DjangoSession session, String path) {
+        this(session.url(path));
+    }
+
+    /**
+     * Appends a path segment, adding slashes as required. DRF routers expect a trailing slash,
+     * so one is always kept.
+     *
+     * @param segment such as "users" or 42
+     * @return this builder
+     */
+    public DjangoURLBuilder path(Object segment) {
+        String value = segment.toString();
+        while (value.startsWith("/"))
+            value = value.substring(1);
+        if (path.length() == 0 || path.charAt(path.length() - 1) != '/')
+            path.append('/');
+        path.append(value);
+        if (!value.endsWith("/"))
+            path.append('/');
+        return this;
+    }
+
+    /**
+     * @param names fields to include in response ({@code ?fields=})
+     * @return this builder
+     */
+    public DjangoURLBuilder fields(String... names) {
+        addAll(fields, names);
+        return this;
+    }
+
+    /**
+     * @param names fields to leave out of response ({@code ?omit=})
+     * @return this builder
+     */
+    public DjangoURLBuilder omit(String... names) {
+        addAll(omit, names);
+        return this;
+    }
+
+    /**
+     * @param names related fields to expand into objects ({@code ?expand=})
+     * @return this builder
+     */
+    public DjangoURLBuilder expand(String... names) {
+        addAll(expand, names);
+        return this;
+    }
+
+    /**
+     * @param names fields to order by, prefixed with "-" for descending ({@code ?ordering=})
+     * @return this builder
+     */
+    public DjangoURLBuilder ordering(String... names) {
+        addAll(ordering, names);
+        return this;
+    }
+
+    private static void addAll(Set<String> set, String... names) {
+        for (String name : names) {
+            name = name.trim();
+            if (!name.isEmpty())
+                set.add(name);
+        }
+    }
+
+    /**
+     * Adds a filter, such as {@code filter("status", "open")} or
+     * {@code filter("created__gte", "2018-12-01")}. Filtering on the same name again adds
+     * another value, for filters accepting several.
+     *
+     * @param name name of filter
+     * @param value value of filter, null is ignored
+     * @return this builder
+     */
+    public DjangoURLBuilder filter(String name, @Nullable Object value) {
+        if (value != null)
+            addParameter(name, value instanceof Boolean ? ((Boolean) value ? "true" : "false") : value.toString());
+        return this;
+    }
+
+    /**
+     * @param terms search terms ({@code ?search=})
+     * @return this builder
+     */
+    public DjangoURLBuilder search(@Nullable String terms) {
+        return setParameter(keySearch, terms == null || terms.trim().isEmpty() ? null : terms.trim());
+    }
+
+    public DjangoURLBuilder page(int page) {
+        return setParameter(keyPage, String.valueOf(page));
+    }
+
+    public DjangoURLBuilder pageSize(int pageSize) {
+        return setParameter(keyPageSize, String.valueOf(pageSize));
+    }
+
+    public DjangoURLBuilder limit(int limit) {
+        return setParameter(keyLimit, String.valueOf(limit));
+    }
+
+    public DjangoURLBuilder offset(int offset) {
+        return setParameter(keyOffset, String.valueOf(offset));
+    }
+
+    private void addParameter(String name, String value) {
+        List<String> values = parameters.get(name);
+        if (values == null) {
+            values = new ArrayList<>(1);
+            parameters.put(name, values);
+        }
+        values.add(value);
+    }
+
+    private DjangoURLBuilder setParameter(String name, @Nullable String value) {
+        if (value == null)
+            parameters.remove(name);
+        else
+            parameters.put(name, new ArrayList<>(Collections.singletonList(value)));
+        return this;
+    }
+
+    /**
+     * @return the canonical URL
+     */
+    public String build() {
+        Map<String, List<String>> query = new TreeMap<>(parameters);
+        putJoined(query, keyFields, fields);
+        putJoined(query, keyOmit, omit);
+        putJoined(query, keyExpand, expand);
+        putJoined(query, keyOrdering, ordering);
+
+        StringBuilder url = new StringBuilder(path);
+        boolean first = true;
+        for (Map.Entry<String, List<String>> parameter : query.entrySet()) {
+            for (String value : new TreeSet<>(parameter.getValue())) {
+                url.append(first ? '?' : '&');
+                url.append(encode(parameter.getKey())).append('=').append(encode(value));
+                first = false;
+            }
+        }
+        return url.toString();
+    }
+
+    private static void putJoined(Map<String, List<String>> query, String name, Set<String> values) {
+        if (values.isEmpty())
+            return;
+        StringBuilder joined = new StringBuilder();
+        for (String value : values) {
+            if (joined.length() > 0)
+                joined.append(',');
+            joined.append(value);
+        }
+        query.put(name, Arrays.asList(joined.toString()));
+    }
+
+    @Override
+    public String toString() {
+        return build();
+    }
+
+    /**
+     * Percent-encodes everything except unreserved characters and commas, which separate
+     * field lists and are more readable unencoded.
+     */
+    private static String encode(String value) {
+        StringBuilder encoded = new StringBuilder(value.length());
+        byte[] bytes;
+        try {
+            bytes = value.getBytes(CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+        for (byte b : bytes) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || c == ',') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(Character.toUpperCase(Character.forDigit((c >> 4) & 0xF, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, CHARSET);
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,692 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link SharedPreferences} implementation backed by an append-only log, to be used with
+ * {@link SharedPreferenceAdapter#SharedPreferenceAdapter(SharedPreferences)} when a store
+ * holds too much data for the XML based default.
+ *
+ * Differences from the default implementation:
+ * <ul>
+ *     <li>Nothing is read until the first access. The log is then memory mapped and
+ *     replayed once.</li>
+ *     <li>A change appends only the changed keys to the log instead of rewriting the
+ *     whole file.</li>
+ *     <li>Once stale records outnumber live keys, the log is compacted in background.</li>
+ *     <li>Reads never lock, so any number of threads may read while a write is in progress.</li>
+ * </ul>
+ *
+ * A torn record at the end of the log, e.g. after the process was killed mid-write, fails its
+ * checksum and is discarded on the next load.
+ *
+ * Existing preferences can be moved over with {@link #migrate(SharedPreferences, boolean)}:
+ * <pre>{@code
+ *     LogStructuredPreferences store = LogStructuredPreferences.getInstance(context, "cache");
+ *     store.migrate(context.getSharedPreferences("cache", Context.MODE_PRIVATE), true);
+ *     SharedPreferenceAdapter adapter = new SharedPreferenceAdapter(store);
+ * }</pre>
+ */
+public class LogStructuredPreferences implements SharedPreferences {
+
+    private static final String TAG = "LogStructuredPrefs";
+
+    private static final int MAGIC = 0x44524650;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_CLEAR = 3;
+
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_FLOAT = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_STRING_SET = 6;
+
+    // Compaction is not worth it below this many stale records
+    private static final int MIN_STALE_RECORDS = 256;
+
+    private static final Map<String, LogStructuredPreferences> instances = new HashMap<>();
+
+    // Appends and compactions of all stores are performed one at a time, in order
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor();
+
+    private final File file;
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    private final Object loadLock = new Object();
+    private final Object writeLock = new Object();
+    private final WeakHashMap<OnSharedPreferenceChangeListener, Object> listeners = new WeakHashMap<>();
+
+    private volatile boolean loaded = false;
+
+    // Following are only accessed on WRITER, after load
+    private FileChannel channel;
+    private long validLength;
+    private int records;
+
+    /**
+     * Returns the store for a file, so that every caller of a file shares a single writer.
+     *
+     * @param file the log file, created on first write
+     * @return the store for the file
+     */
+    public static LogStructuredPreferences getInstance(File file) {
+        synchronized (instances) {
+            String path = file.getAbsolutePath();
+            LogStructuredPreferences instance = instances.get(path);
+            if (instance == null) {
+                instance = new LogStructuredPreferences(file);
+                instances.put(path, instance);
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * @param cont any context
+     * @param name name of the store, the log is kept in the app's files directory
+     * @return the store with given name
+     */
+    public static LogStructuredPreferences getInstance(Context cont, String name) {
+        return getInstance(new File(cont.getFilesDir(), name + ".kvlog"));
+    }
+
+    // Package-private so that tests can read a log the way a new process would
+    LogStructuredPreferences(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Starts loading the log in background, so that the first read doesn't have to wait.
+     */
+    public void preload() {
+        if (loaded)
+            return;
+        WRITER.execute(new Runnable() {
+            @Override
+            public void run() {
+                awaitLoaded();
+            }
+        });
+    }
+
+    /**
+     * Copies every entry of another Shared Preference into this store in a single write,
+     * unless this store already has data.
+     *
+     * @param source Shared Preference to copy from
+     * @param clearSource true to remove entries from source after they have been copied
+     * @return true if entries were copied
+     */
+    public boolean migrate(SharedPreferences source, boolean clearSource) {
+        awaitLoaded();
+        if (!values.isEmpty())
+            return false;
+
+        Map<String, ?> entries = source.getAll();
+        if (entries.isEmpty())
+            return false;
+
+        LogEditor editor = new LogEditor();
+        for (Map.Entry<String, ?> entry : entries.entrySet()) {
+            editor.put(entry.getKey(), entry.getValue());
+        }
+        if (!editor.commit())
+            return false;
+
+        if (clearSource)
+            source.edit().clear().commit();
+        return true;
+    }
+
+    private void awaitLoaded() {
+        if (loaded)
+            return;
+        synchronized (loadLock) {
+            if (loaded)
+                return;
+            load();
+            loaded = true;
+        }
+    }
+
+    private void load() {
+        validLength = 0;
+        records = 0;
+        if (!file.exists() || file.length() < HEADER_SIZE)
+            return;
+
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                Log.w(TAG, "Discarding unrecognised log " + file);
+                return;
+            }
+
+            CRC32 crc = new CRC32();
+            validLength = HEADER_SIZE;
+            while (buffer.remaining() >= 8) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining())
+                    break;
+
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum)
+                    break;
+
+                replay(payload);
+                records++;
+                validLength = buffer.position();
+            }
+
+            if (validLength < raf.length())
+                Log.w(TAG, "Discarding " + (raf.length() - validLength) + " bytes of torn records in " + file);
+        } catch (IOException ex) {
+            Log.e(TAG, "Couldn't load " + file, ex);
+        } finally {
+            closeQuietly(raf);
+        }
+    }
+
+    private void replay(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        while (in.available() > 0) {
+            byte op = in.readByte();
+            switch (op) {
+                case OP_CLEAR:
+                    values.clear();
+                    break;
+                case OP_REMOVE:
+                    values.remove(readString(in));
+                    break;
+                case OP_PUT:
+                    String key = readString(in);
+                    values.put(key, readValue(in));
+                    break;
+                default:
+                    throw new IOException("Unknown operation " + op);
+            }
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_INT:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_FLOAT:
+                return in.readFloat();
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_STRING_SET:
+                int count = in.readInt();
+                Set<String> set = new HashSet<>(count);
+                for (int i = 0; i < count; i++) {
+                    set.add(readString(in));
+                }
+                return Collections.unmodifiableSet(set);
+            default:
+                throw new IOException("Unknown type " + type);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writePut(DataOutputStream out, String key, Object value) throws IOException {
+        out.writeByte(OP_PUT);
+        writeString(out, key);
+        if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Set) {
+            out.writeByte(TYPE_STRING_SET);
+            Set<?> set = (Set<?>) value;
+            out.writeInt(set.size());
+            for (Object item : set) {
+                writeString(out, (String) item);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value type " + value.getClass());
+        }
+    }
+
+    /**
+     * Appends one record to the log. Runs on WRITER only.
+     */
+    private boolean append(byte[] payload, boolean sync) {
+        try {
+            openChannel();
+            CRC32 crc = new CRC32();
+            crc.update(payload, 0, payload.length);
+
+            ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+            record.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            record.flip();
+            channel.position(validLength);
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (sync)
+                channel.force(false);
+
+            validLength += 8 + payload.length;
+            records++;
+            if (records - values.size() > Math.max(MIN_STALE_RECORDS, values.size()))
+                compact();
+            return true;
+        } catch (IOException ex) {
+            Log.e(TAG, "Couldn't write to " + file, ex);
+            closeQuietly(channel);
+            channel = null;
+            return false;
+        }
+    }
+
+    /**
+     * Forces records appended so far to disk. Runs on WRITER only.
+     */
+    private boolean flush() {
+        if (channel == null)
+            return true;
+        try {
+            channel.force(false);
+            return true;
+        } catch (IOException ex) {
+            Log.e(TAG, "Couldn't write to " + file, ex);
+            return false;
+        }
+    }
+
+    private void openChannel() throws IOException {
+        if (channel != null)
+            return;
+
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs())
+            throw new IOException("Couldn't create " + parent);
+
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        if (validLength < HEADER_SIZE) {
+            channel.truncate(0);
+            channel.write((ByteBuffer) ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip(), 0);
+            validLength = HEADER_SIZE;
+        } else if (channel.size() > validLength) {
+            // Drop torn records found while loading
+            channel.truncate(validLength);
+        }
+    }
+
+    /**
+     * Rewrites the log with one record holding every live entry. Runs on WRITER only.
+     * Records queued after the snapshot are replayed on top of it, which is harmless as
+     * every operation is idempotent when applied in order.
+     *
+     * A full rewrite is only done after at least as many appends as there are live keys,
+     * so each append pays for rewriting about one entry, see
+     * LogStructuredPreferencesBenchmark. The XML based default rewrites every entry on
+     * every change.
+     */
+    private void compact() throws IOException {
+        Map<String, Object> snapshot;
+        synchronized (writeLock) {
+            snapshot = new HashMap<>(values);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_CLEAR);
+        for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+            writePut(out, entry.getKey(), entry.getValue());
+        }
+        out.flush();
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        File temp = new File(file.getPath() + ".tmp");
+        RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+        try {
+            raf.setLength(0);
+            raf.writeInt(MAGIC);
+            raf.writeInt(VERSION);
+            raf.writeInt(payload.length);
+            raf.writeInt((int) crc.getValue());
+            raf.write(payload);
+            raf.getFD().sync();
+        } finally {
+            closeQuietly(raf);
+        }
+
+        closeQuietly(channel);
+        channel = null;
+        if (!temp.renameTo(file))
+            throw new IOException("Couldn't replace " + file);
+
+        validLength = HEADER_SIZE + 8 + payload.length;
+        records = 1;
+    }
+
+    private static void closeQuietly(@Nullable java.io.Closeable closeable) {
+        if (closeable == null)
+            return;
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public Map<String, ?> getAll() {
+        awaitLoaded();
+        return new HashMap<>(values);
+    }
+
+    @Nullable
+    @Override
+    public String getString(String key, @Nullable String defValue) {
+        awaitLoaded();
+        Object value = values.get(key);
+        return value != null ? (String) value : defValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public Set<String> getStringSet(String key, @Nullable Set<String> defValues) {
+        awaitLoaded();
+        Object value = values.get(key);
+        return value != null ? (Set<String>) value : defValues;
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        awaitLoaded();
+        Object value = values.get(key);
+        return value != null ? (Integer) value : defValue;
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        awaitLoaded();
+        Object value = values.get(key);
+        return value != null ? (Long) value : defValue;
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        awaitLoaded();
+        Object value = values.get(key);
+        return value != null ? (Float) value : defValue;
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        awaitLoaded();
+        Object value = values.get(key);
+        return value != null ? (Boolean) value : defValue;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        awaitLoaded();
+        return values.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+        return new LogEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        synchronized (listeners) {
+            listeners.put(listener, this);
+        }
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        synchronized (listeners) {
+            listeners.remove(listener);
+        }
+    }
+
+    private void notifyListeners(final List<String> keys) {
+        final List<OnSharedPreferenceChangeListener> targets;
+        synchronized (listeners) {
+            if (listeners.isEmpty())
+                return;
+            targets = new ArrayList<>(listeners.keySet());
+        }
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                for (OnSharedPreferenceChangeListener listener : targets) {
+                    for (String key : keys) {
+                        listener.onSharedPreferenceChanged(LogStructuredPreferences.this, key);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Collects changes and writes them as a single log record.
+     */
+    private class LogEditor implements Editor {
+
+        // A null value marks a removal
+        private final Map<String, Object> changes = new LinkedHashMap<>();
+        private boolean clear = false;
+
+        private Editor put(String key, @Nullable Object value) {
+            synchronized (this) {
+                changes.put(key, value);
+            }
+            return this;
+        }
+
+        @Override
+        public Editor putString(String key, @Nullable String value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putStringSet(String key, @Nullable Set<String> values) {
+            return put(key, values == null ? null : Collections.unmodifiableSet(new HashSet<>(values)));
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor remove(String key) {
+            return put(key, null);
+        }
+
+        @Override
+        public synchronized Editor clear() {
+            clear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            Future<Boolean> result = write(true);
+            if (result == null) {
+                // As with SharedPreferences, an empty commit still waits for earlier apply()
+                result = WRITER.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return flush();
+                    }
+                });
+            }
+            try {
+                return result.get();
+            } catch (InterruptedException | ExecutionException ex) {
+                return false;
+            }
+        }
+
+        @Override
+        public void apply() {
+            write(false);
+        }
+
+        /**
+         * Applies changes to memory right away and queues the log record, both under the
+         * same lock so that records reach the log in the order memory was changed.
+         */
+        @Nullable
+        private synchronized Future<Boolean> write(final boolean sync) {
+            awaitLoaded();
+            if (!clear && changes.isEmpty())
+                return null;
+
+            final byte[] payload;
+            List<String> changedKeys = new ArrayList<>(changes.keySet());
+            synchronized (writeLock) {
+                try {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    DataOutputStream out = new DataOutputStream(bytes);
+                    if (clear)
+                        out.writeByte(OP_CLEAR);
+                    for (Map.Entry<String, Object> change : changes.entrySet()) {
+                        if (change.getValue() == null) {
+                            out.writeByte(OP_REMOVE);
+                            writeString(out, change.getKey());
+                        } else {
+                            writePut(out, change.getKey(), change.getValue());
+                        }
+                    }
+                    out.flush();
+                    payload = bytes.toByteArray();
+                } catch (IOException ex) {
+                    // Writing to memory can't fail
+                    throw new IllegalStateException(ex);
+                }
+
+                if (clear)
+                    values.clear();
+                for (Map.Entry<String, Object> change : changes.entrySet()) {
+                    if (change.getValue() == null)
+                        values.remove(change.getKey());
+                    else
+                        values.put(change.getKey(), change.getValue());
+                }
+                changes.clear();
+                clear = false;
+
+                Future<Boolean> result = WRITER.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return append(payload, sync);
+                    }
+                });
+                notifyListeners(changedKeys);
+                return result;
+            }
+        }
+    }
+}
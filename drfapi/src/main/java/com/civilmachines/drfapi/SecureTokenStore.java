@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2026 The drf-android Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.civilmachines.drfapi;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Base64;
+import android.util.Log;
+
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.ProviderException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Keeps the auth token encrypted in Shared Preference with an AES key held in Android Keystore.
+ *
+ * The keystore key is loaded, and the stored token decrypted, once in background as soon as
+ * the store is created. Afterwards every {@link #getToken()} is served from memory, so the
+ * request path never pays for keystore or Shared Preference access. The token is re-encrypted
+ * only when it changes.
+ *
+ * The in-memory token is a plain String, as is every Authorization header built from it, so
+ * it is protected at rest only and is not wiped from memory on logout.
+ *
+ * Enable it for {@link UserSharedPreferenceAdapter} early, e.g. in Application.onCreate():
+ * <pre>{@code
+ *     UserSharedPreferenceAdapter.enableTokenEncryption(this);
+ * }</pre>
+ *
+ * Android Keystore supports AES keys from API 23. On older versions the token is stored in
+ * plain text as before, while reads are still served from memory.
+ */
+public class SecureTokenStore {
+
+    private static final String TAG = "SecureTokenStore";
+    private static final String KEYSTORE = "AndroidKeyStore";
+    private static final String KEY_ALIAS_PREFIX = "drfapi_token_";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    public static String keyEncryptedToken = "encrypted_token";
+
+    private static final Map<String, SecureTokenStore> instances = new HashMap<>();
+
+    // Key setup and writes of every store run one at a time, in order
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor();
+
+    private final SharedPreferenceAdapter adapter;
+    private final String alias;
+    private final String plainKey;
+    private final Future<?> ready;
+
+    // Bumped on every change, so that queued writes of an older token are skipped
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private volatile String token;
+    private SecretKey key;
+
+    /**
+     * @param cont any context, application context is kept
+     * @param fileName Shared Preference file holding the token
+     * @param plainKey key under which the token may be stored in plain text, it is
+     *                 encrypted and removed when found
+     * @return the store for given file
+     */
+    public static SecureTokenStore getInstance(Context cont, String fileName, String plainKey) {
+        synchronized (instances) {
+            SecureTokenStore instance = instances.get(fileName);
+            if (instance == null) {
+                Context appContext = cont.getApplicationContext();
+                instance = new SecureTokenStore(appContext != null ? appContext : cont, fileName, plainKey);
+                instances.put(fileName, instance);
+            }
+            return instance;
+        }
+    }
+
+    private SecureTokenStore(Context cont, String fileName, String plainKey) {
+        this.adapter = new SharedPreferenceAdapter(cont, fileName);
+        this.alias = KEY_ALIAS_PREFIX + fileName;
+        this.plainKey = plainKey;
+        this.ready = WORKER.submit(new Runnable() {
+            @Override
+            public void run() {
+                initialize();
+            }
+        });
+    }
+
+    private void initialize() {
+        int current = generation.get();
+        String plain = adapter.getString(plainKey);
+        String encrypted = adapter.getString(keyEncryptedToken);
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            if (plain != null)
+                cache(current, plain);
+            return;
+        }
+
+        try {
+            key = loadOrCreateKey();
+        } catch (GeneralSecurityException | java.io.IOException | ProviderException
+                | IllegalStateException | ClassCastException ex) {
+            // Broken keystores of some devices throw runtime exceptions as well
+            Log.e(TAG, "Couldn't initialize keystore key, keeping token in plain text", ex);
+            if (plain != null)
+                cache(current, plain);
+            return;
+        }
+
+        if (encrypted != null) {
+            try {
+                cache(current, decrypt(encrypted));
+            } catch (GeneralSecurityException | IllegalArgumentException | ProviderException ex) {
+                // Key was lost, e.g. data restored on another device. Token is unusable.
+                Log.w(TAG, "Couldn't decrypt stored token, discarding it", ex);
+                adapter.remove(keyEncryptedToken);
+            }
+        } else if (plain != null) {
+            // Token saved before encryption was enabled
+            cache(current, plain);
+            persist(current, plain);
+        }
+    }
+
+    private void cache(int expectedGeneration, String value) {
+        synchronized (this) {
+            if (generation.get() == expectedGeneration)
+                token = value;
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private SecretKey loadOrCreateKey() throws GeneralSecurityException, java.io.IOException {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE);
+        keyStore.load(null);
+        if (keyStore.containsAlias(alias))
+            return ((KeyStore.SecretKeyEntry) keyStore.getEntry(alias, null)).getSecretKey();
+
+        KeyGenerator generator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE);
+        generator.init(new KeyGenParameterSpec.Builder(alias,
+                KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .build());
+        return generator.generateKey();
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private String encrypt(String value) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, key);
+        byte[] iv = cipher.getIV();
+        byte[] encrypted = cipher.doFinal(value.getBytes(UTF8));
+
+        byte[] payload = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, payload, 0, iv.length);
+        System.arraycopy(encrypted, 0, payload, iv.length, encrypted.length);
+        return Base64.encodeToString(payload, Base64.NO_WRAP);
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private String decrypt(String value) throws GeneralSecurityException {
+        byte[] payload = Base64.decode(value, Base64.NO_WRAP);
+        if (payload.length <= IV_LENGTH)
+            throw new GeneralSecurityException("Encrypted token is too short");
+
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, payload, 0, IV_LENGTH));
+        return new String(cipher.doFinal(payload, IV_LENGTH, payload.length - IV_LENGTH), UTF8);
+    }
+
+    /**
+     * Writes the token, encrypted if a key is available. Runs on WORKER only.
+     */
+    private void persist(int expectedGeneration, String value) {
+        if (generation.get() != expectedGeneration)
+            return;
+
+        String encrypted = null;
+        if (key != null) {
+            try {
+                encrypted = encrypt(value);
+            } catch (GeneralSecurityException | ProviderException ex) {
+                Log.e(TAG, "Couldn't encrypt token, it is kept in memory only", ex);
+                return;
+            }
+        }
+
+        // Checked again and written under the lock clear() takes, so that a token cleared
+        // while it was being encrypted is never written back after logout
+        synchronized (this) {
+            if (generation.get() != expectedGeneration)
+                return;
+            if (encrypted == null)
+                adapter.begin().saveData(plainKey, value).apply();
+            else
+                adapter.begin()
+                        .saveData(keyEncryptedToken, encrypted)
+                        .remove(plainKey)
+                        .apply();
+        }
+    }
+
+    private void awaitReady() {
+        try {
+            ready.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            Log.e(TAG, "Token store initialization failed", ex);
+        }
+    }
+
+    /**
+     * Returns the token from memory. Only waits if called before the store has finished
+     * initializing, which happens on a background thread.
+     *
+     * @return the token, null if no token is saved
+     */
+    @Nullable
+    public String getToken() {
+        String value = token;
+        if (value == null && !ready.isDone()) {
+            awaitReady();
+            value = token;
+        }
+        return value;
+    }
+
+    /**
+     * Updates the in-memory token immediately and writes it encrypted in background.
+     *
+     * @param value the new token
+     */
+    public void saveToken(@NonNull final String value) {
+        final int current;
+        synchronized (this) {
+            current = generation.incrementAndGet();
+            token = value;
+        }
+        WORKER.execute(new Runnable() {
+            @Override
+            public void run() {
+                persist(current, value);
+            }
+        });
+    }
+
+    /**
+     * Forgets the in-memory token. Pending writes of an older token are discarded, and none is
+     * written once this returns, so stored data can be cleared right after.
+     * Stored data is left to the caller, see {@link UserSharedPreferenceAdapter#logOut()}.
+     */
+    public void clear() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            token = null;
+        }
+    }
+}
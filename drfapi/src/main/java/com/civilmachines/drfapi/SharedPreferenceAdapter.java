@@ -19,13 +19,28 @@ package com.civilmachines.drfapi;
 import android.app.Activity;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
 import android.preference.PreferenceManager;
+import android.support.annotation.Nullable;
+import android.util.JsonReader;
+import android.util.JsonWriter;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * An adapter to handle Shared Preference in a uniform manner
@@ -35,8 +50,32 @@ import java.util.Set;
  */
 public class SharedPreferenceAdapter {
 
+    private static final String SNAPSHOT_CHARSET = "UTF-8";
+    private static final int SNAPSHOT_VERSION = 1;
+
+    // Commits batches whose caller asked to be notified, off the calling thread
+    private static final Executor WRITER = Executors.newSingleThreadExecutor();
+
+    private static final Executor MAIN_THREAD = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            new Handler(Looper.getMainLooper()).post(command);
+        }
+    };
+
     public SharedPreferences main;
-    public SharedPreferences.Editor edit;
+
+    /**
+     * @deprecated holds the editor of the latest change, which may be in use by another
+     * thread. Use {@link #begin()} to group changes.
+     */
+    @Deprecated
+    public volatile SharedPreferences.Editor edit;
+
+    private volatile boolean async = false;
+
+    // Runs OnSaveListener callbacks, replaced by tests
+    Executor delivery = MAIN_THREAD;
 
     /**
      * This function initializes the shared preference with Activity
@@ -58,7 +97,22 @@ public class SharedPreferenceAdapter {
         main = cont.getSharedPreferences(AdapterName, Context.MODE_PRIVATE);
     }
 
+    /**
+     * Uses any {@link SharedPreferences} implementation as storage, such as
+     * {@link LogStructuredPreferences}
+     * @param store the storage backing this adapter
+     */
+    public SharedPreferenceAdapter(SharedPreferences store){
+        main = store;
+    }
+
+    /**
+     * @deprecated use {@link #begin()} to group changes
+     * @return a new editor of the Shared Preference
+     */
+    @Deprecated
     public SharedPreferences.Editor getEditor() {
+        edit = main.edit();
         return edit;
     }
 
@@ -91,41 +145,35 @@ public class SharedPreferenceAdapter {
     }
 
     public boolean saveData(String key, String val){
-        edit = main.edit();
-        edit.putString(key, val);
-        return edit.commit();
+        return write(main.edit().putString(key, val));
     }
 
     public boolean saveData(String key, int val){
-        edit = main.edit();
-        edit.putInt(key, val);
-        return edit.commit();
+        return write(main.edit().putInt(key, val));
     }
 
     public boolean saveData(String key, long val){
-        edit = main.edit();
-        edit.putLong(key, val);
-        return edit.commit();
+        return write(main.edit().putLong(key, val));
     }
 
     public boolean saveData(String key, boolean val){
-        edit = main.edit();
-        edit.putBoolean(key, val);
-        return edit.commit();
+        return write(main.edit().putBoolean(key, val));
     }
 
     public boolean saveData(String key, Float val){
-        edit = main.edit();
-        edit.putFloat(key, val);
-        return edit.commit();
+        return write(main.edit().putFloat(key, val));
     }
 
     public boolean saveData(String key, Set<String> val){
-        edit = main.edit();
-        edit.putStringSet(key, val);
-        return edit.commit();
+        return write(main.edit().putStringSet(key, val));
     }
 
+    /**
+     * Copies every entry into a JSONObject. Prefer {@link #exportSnapshot(OutputStream, String)}
+     * for large stores, which streams entries without building a JSONObject.
+     * @return JSONObject with every entry
+     * @throws JSONException if a value can't be put in JSON
+     */
     public JSONObject getProperty() throws JSONException {
         JSONObject params = new JSONObject();
         Map<String, ?> allEntries = main.getAll();
@@ -136,14 +184,346 @@ public class SharedPreferenceAdapter {
     }
 
     public boolean clearData(){
-        edit = main.edit();
-        edit.clear();
-        return edit.commit();
+        return write(main.edit().clear());
     }
 
     public boolean remove(String KEY){
+        return write(main.edit().remove(KEY));
+    }
+
+    /**
+     * Writes entries to a stream as JSON, one entry at a time, preserving the type of
+     * every value so that {@link #importSnapshot(InputStream, String, boolean)} restores
+     * them exactly:
+     * <pre>
+     *     {@code {"version": 1, "entries": [{"k": "token", "t": "s", "v": "..."}, ...]}}
+     * </pre>
+     * Stream is flushed but not closed.
+     *
+     * @param out stream to write to
+     * @param keyPrefix only entries whose key starts with this prefix are written, null for all
+     * @return number of entries written
+     * @throws IOException if stream can't be written
+     */
+    public int exportSnapshot(OutputStream out, @Nullable String keyPrefix) throws IOException {
+        JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, SNAPSHOT_CHARSET)));
+        int count = 0;
+
+        writer.beginObject();
+        writer.name("version").value(SNAPSHOT_VERSION);
+        writer.name("entries").beginArray();
+        for (Map.Entry<String, ?> entry : main.getAll().entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if ((keyPrefix != null && !key.startsWith(keyPrefix)) || value == null)
+                continue;
+
+            writer.beginObject();
+            writer.name("k").value(key);
+            if (value instanceof String) {
+                writer.name("t").value("s");
+                writer.name("v").value((String) value);
+            } else if (value instanceof Integer) {
+                writer.name("t").value("i");
+                writer.name("v").value((Integer) value);
+            } else if (value instanceof Long) {
+                writer.name("t").value("l");
+                writer.name("v").value((Long) value);
+            } else if (value instanceof Float) {
+                writer.name("t").value("f");
+                writer.name("v").value((Float) value);
+            } else if (value instanceof Boolean) {
+                writer.name("t").value("b");
+                writer.name("v").value((Boolean) value);
+            } else if (value instanceof Set) {
+                writer.name("t").value("ss");
+                writer.name("v").beginArray();
+                for (Object item : (Set<?>) value) {
+                    writer.value((String) item);
+                }
+                writer.endArray();
+            } else {
+                throw new IOException("Unsupported value type " + value.getClass() + " for " + key);
+            }
+            writer.endObject();
+            count++;
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Restores entries written by {@link #exportSnapshot(OutputStream, String)} in a single
+     * write. Stream is not closed.
+     *
+     * @param in stream to read from
+     * @param keyPrefix only entries whose key starts with this prefix are restored, null for all
+     * @param replace true to first remove existing entries matching keyPrefix
+     * @return number of entries restored
+     * @throws IOException if stream can't be read or is not a snapshot
+     */
+    public int importSnapshot(InputStream in, @Nullable String keyPrefix, boolean replace) throws IOException {
+        JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(in, SNAPSHOT_CHARSET)));
+        Batch batch = begin();
+        int count = 0;
+
+        if (replace) {
+            if (keyPrefix == null) {
+                batch.clearData();
+            } else {
+                for (String key : main.getAll().keySet()) {
+                    if (key.startsWith(keyPrefix))
+                        batch.remove(key);
+                }
+            }
+        }
+
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("version")) {
+                    int version = reader.nextInt();
+                    if (version != SNAPSHOT_VERSION)
+                        throw new IOException("Unsupported snapshot version " + version);
+                } else if (name.equals("entries")) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (readSnapshotEntry(reader, batch, keyPrefix))
+                            count++;
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException ex) {
+            throw new IOException("Malformed snapshot", ex);
+        }
+
+        if (!batch.commit())
+            throw new IOException("Couldn't write snapshot");
+        return count;
+    }
+
+    private boolean readSnapshotEntry(JsonReader reader, Batch batch, @Nullable String keyPrefix)
+            throws IOException {
+        String key = null;
+        String type = null;
+        Object value = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("k")) {
+                key = reader.nextString();
+            } else if (name.equals("t")) {
+                type = reader.nextString();
+            } else if (name.equals("v") && type != null) {
+                switch (type) {
+                    case "s":
+                        value = reader.nextString();
+                        break;
+                    case "i":
+                        value = reader.nextInt();
+                        break;
+                    case "l":
+                        value = reader.nextLong();
+                        break;
+                    case "f":
+                        value = (float) reader.nextDouble();
+                        break;
+                    case "b":
+                        value = reader.nextBoolean();
+                        break;
+                    case "ss":
+                        Set<String> set = new HashSet<>();
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            set.add(reader.nextString());
+                        }
+                        reader.endArray();
+                        value = set;
+                        break;
+                    default:
+                        throw new IOException("Unsupported value type " + type);
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (key == null || value == null)
+            throw new IOException("Snapshot entry must have \"k\", \"t\" and \"v\" in that order");
+        if (keyPrefix != null && !key.startsWith(keyPrefix))
+            return false;
+
+        if (value instanceof String)
+            batch.saveData(key, (String) value);
+        else if (value instanceof Integer)
+            batch.saveData(key, (int) (Integer) value);
+        else if (value instanceof Long)
+            batch.saveData(key, (long) (Long) value);
+        else if (value instanceof Float)
+            batch.saveData(key, (Float) value);
+        else if (value instanceof Boolean)
+            batch.saveData(key, (boolean) (Boolean) value);
+        else
+            batch.saveData(key, castStringSet(value));
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> castStringSet(Object value) {
+        return (Set<String>) value;
+    }
+
+    /**
+     * Starts a batch of changes that are written to disk together, in a single
+     * commit or apply, instead of once per value.
+     * <pre>{@code
+     *     adapter.begin()
+     *             .saveData("name", name)
+     *             .saveData("age", age)
+     *             .remove("otp")
+     *             .apply();
+     * }</pre>
+     *
+     * @return a new {@link Batch}, to be used by the calling thread only
+     */
+    public Batch begin(){
         edit = main.edit();
-        edit.remove(KEY);
-        return edit.commit();
+        return new Batch(edit);
+    }
+
+    /**
+     * When async is true, saveData, remove and clearData write to disk in background
+     * using {@link SharedPreferences.Editor#apply()} and always return true.
+     * In-memory values are updated immediately in either mode.
+     *
+     * @param async true to stop blocking the calling thread on disk writes
+     */
+    public void setAsync(boolean async){
+        this.async = async;
+    }
+
+    public boolean isAsync(){
+        return async;
+    }
+
+    private boolean write(SharedPreferences.Editor editor){
+        edit = editor;
+        if (async) {
+            editor.apply();
+            return true;
+        }
+        return editor.commit();
+    }
+
+    /**
+     * Called on the main thread once a {@link Batch} has been written to disk
+     */
+    public interface OnSaveListener {
+
+        /**
+         * @param success true if the new values were successfully written to persistent storage
+         */
+        void onSaved(boolean success);
+    }
+
+    /**
+     * A set of changes applied to the Shared Preference at once.
+     * Holds its own editor, so batches started on different threads don't interfere.
+     */
+    public class Batch {
+
+        private final SharedPreferences.Editor editor;
+
+        private Batch(SharedPreferences.Editor editor){
+            this.editor = editor;
+        }
+
+        public Batch saveData(String key, String val){
+            editor.putString(key, val);
+            return this;
+        }
+
+        public Batch saveData(String key, int val){
+            editor.putInt(key, val);
+            return this;
+        }
+
+        public Batch saveData(String key, long val){
+            editor.putLong(key, val);
+            return this;
+        }
+
+        public Batch saveData(String key, boolean val){
+            editor.putBoolean(key, val);
+            return this;
+        }
+
+        public Batch saveData(String key, Float val){
+            editor.putFloat(key, val);
+            return this;
+        }
+
+        public Batch saveData(String key, Set<String> val){
+            editor.putStringSet(key, val);
+            return this;
+        }
+
+        public Batch remove(String KEY){
+            editor.remove(KEY);
+            return this;
+        }
+
+        public Batch clearData(){
+            editor.clear();
+            return this;
+        }
+
+        /**
+         * Writes all changes synchronously, or asynchronously if adapter is async.
+         *
+         * @return true if the new values were written (always true if adapter is async)
+         */
+        public boolean commit(){
+            return write(editor);
+        }
+
+        /**
+         * Writes all changes to disk in background.
+         */
+        public void apply(){
+            editor.apply();
+        }
+
+        /**
+         * Commits all changes in background and notifies listener on main thread with the
+         * result of that commit. Unlike {@link #apply()}, changes become visible in memory
+         * only once the background commit runs. Batches applied this way are committed in
+         * the order they were applied.
+         *
+         * @param listener notified with the result of the write
+         */
+        public void apply(final OnSaveListener listener){
+            WRITER.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final boolean success = editor.commit();
+                    delivery.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            listener.onSaved(success);
+                        }
+                    });
+                }
+            });
+        }
     }
 }
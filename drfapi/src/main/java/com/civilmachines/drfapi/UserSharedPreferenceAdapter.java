@@ -16,6 +16,13 @@ import android.support.annotation.NonNull;
  *     UserSharedPreferenceAdapter.keyToken = "userToken";
  * </pre>
  *
+ * To keep the token encrypted at rest, call once before any request is made, e.g. in
+ * Application.onCreate():
+ * <pre>
+ *     UserSharedPreferenceAdapter.enableTokenEncryption(this);
+ * </pre>
+ * See {@link SecureTokenStore} for details.
+ *
  * @author <a href="https://himanshus.com" target="_blank">Himanshu Shankar</a>
  * @author <a href="https://divyatiwari.me" target="_blank">Divya Tiwari</a>
  */
@@ -23,27 +30,65 @@ public class UserSharedPreferenceAdapter extends SharedPreferenceAdapter {
     public static String userPrivate = "user_private";
     public static String keyToken = "token";
 
+    private static volatile boolean encryptToken = false;
+
+    private final SecureTokenStore secureStore;
+
     public UserSharedPreferenceAdapter(Context cont) {
         super(cont, userPrivate);
+        secureStore = encryptToken ? SecureTokenStore.getInstance(cont, userPrivate, keyToken) : null;
     }
 
     public UserSharedPreferenceAdapter(Activity act) {
         super(act, userPrivate);
+        secureStore = encryptToken ? SecureTokenStore.getInstance(act, userPrivate, keyToken) : null;
+    }
+
+    /**
+     * Creates an adapter over another file, used by {@link DjangoSession} to keep
+     * the token of every session apart.
+     * @param cont any context
+     * @param fileName Shared Preference file holding the token
+     */
+    public UserSharedPreferenceAdapter(Context cont, String fileName) {
+        super(cont, fileName);
+        secureStore = encryptToken ? SecureTokenStore.getInstance(cont, fileName, keyToken) : null;
+    }
+
+    /**
+     * Stores the token encrypted with a keystore key and serves it from memory afterwards.
+     * Starts loading the key in background right away. A token saved in plain text
+     * earlier is encrypted and removed.
+     *
+     * @param cont any context
+     */
+    public static void enableTokenEncryption(Context cont) {
+        encryptToken = true;
+        SecureTokenStore.getInstance(cont, userPrivate, keyToken);
     }
 
     public boolean isLoggedIn() {
-        return main.contains(keyToken) && super.getString(keyToken).length() > 10;
+        String token = getToken();
+        return token != null && token.length() > 10;
     }
 
     public String getToken() {
+        if (secureStore != null)
+            return secureStore.getToken();
         return getString(keyToken);
     }
 
     public boolean saveToken(@NonNull String token) {
+        if (secureStore != null) {
+            secureStore.saveToken(token);
+            return true;
+        }
         return saveData(keyToken, token);
     }
 
     public void logOut() {
+        if (secureStore != null)
+            secureStore.clear();
         super.clearData();
     }
 }
@@ -0,0 +1,150 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DjangoBatchRequestTest {
+
+    private TestContext context;
+    private DjangoSession personal;
+    private DjangoSession work;
+
+    @Before
+    public void setUp() {
+        context = new TestContext();
+        personal = new DjangoSession(context, "personal");
+        personal.saveToken("personal-token");
+        work = new DjangoSession(context, "work");
+        work.saveToken("work-token");
+    }
+
+    private DjangoJSONObjectRequest request(String url, DjangoSession session) {
+        DjangoJSONObjectRequest request = new DjangoJSONObjectRequest(Request.Method.PATCH, url,
+                new JSONObject(), null, null, context);
+        request.setSession(session);
+        return request;
+    }
+
+    @Test
+    public void batch_isSentWithSessionOfItsRequests() throws Exception {
+        DjangoSession previous = DjangoSession.switchTo(work);
+        try {
+            DjangoBatchRequest batch = new DjangoBatchRequest("https://example.com/api/batch/",
+                    Arrays.<DjangoBaseRequest<?>>asList(
+                            request("https://example.com/api/tasks/1/", personal),
+                            request("https://example.com/api/tasks/2/", personal)),
+                    context);
+
+            assertSame(personal, batch.getSession());
+            assertEquals(DjangoBaseRequest.keyTokenPrefix + "personal-token",
+                    batch.getHeaders().get(DjangoBaseRequest.keyAuthorizationHeader));
+
+            // Credentials of each part are replaced by those of the batch
+            JSONArray body = new JSONArray(new String(batch.getBody(), "UTF-8"));
+            assertEquals("/api/tasks/1/", body.getJSONObject(0).getString("url"));
+            assertFalse(body.getJSONObject(0).has("headers"));
+        } finally {
+            DjangoSession.switchTo(previous);
+        }
+    }
+
+    @Test
+    public void batch_withoutSessions_usesDefaultCredentials() {
+        DjangoBatchRequest batch = new DjangoBatchRequest("https://example.com/api/batch/",
+                Arrays.<DjangoBaseRequest<?>>asList(
+                        request("https://example.com/api/tasks/1/", null),
+                        request("https://example.com/api/tasks/2/", null)),
+                context);
+        assertNull(batch.getSession());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batch_rejectsMixedSessions() {
+        new DjangoBatchRequest("https://example.com/api/batch/",
+                Arrays.<DjangoBaseRequest<?>>asList(
+                        request("https://example.com/api/tasks/1/", personal),
+                        request("https://example.com/api/tasks/2/", work)),
+                context);
+    }
+
+    /**
+     * A part that records which callback it ends in, and which errors it parsed
+     */
+    private DjangoJSONObjectRequest part(final String name, final List<String> calls) {
+        return new DjangoJSONObjectRequest(Request.Method.GET, "https://example.com/api/" + name + "/", null,
+                new Response.Listener<JSONObject>() {
+                    @Override
+                    public void onResponse(JSONObject response) {
+                        calls.add(name + " onResponse");
+                    }
+                },
+                new LoadHarness.RecordingErrorListener() {
+                    @Override
+                    void record(String callback) {
+                        calls.add(name + " " + callback);
+                    }
+                },
+                context) {
+            @Override
+            protected VolleyError parseNetworkError(VolleyError volleyError) {
+                calls.add(name + " parseNetworkError " + volleyError.networkResponse.statusCode);
+                return super.parseNetworkError(volleyError);
+            }
+        };
+    }
+
+    private static JSONObject item(int status, Object body, String contentType) throws Exception {
+        return new JSONObject()
+                .put("status", status)
+                .put("headers", new JSONObject().put("Content-Type", contentType))
+                .put("body", body);
+    }
+
+    @Test
+    public void mixedResponse_isSplitIntoCallbacksOfEachPart() throws Exception {
+        List<String> calls = new ArrayList<>();
+        DjangoBatchRequest batch = new DjangoBatchRequest("https://example.com/api/batch/",
+                Arrays.<DjangoBaseRequest<?>>asList(
+                        part("ok", calls), part("invalid", calls), part("unauthorized", calls), part("broken", calls)),
+                context);
+        JSONArray items = new JSONArray()
+                .put(item(200, new JSONObject().put("id", 1), "application/json"))
+                .put(item(400, new JSONObject().put("title", new JSONArray().put("This field is required.")),
+                        "application/json"))
+                .put(item(401, "Unauthorized", "text/plain"))
+                .put(item(503, "<h1>Service Unavailable</h1>", "text/html"));
+
+        Response<List<Response<?>>> parsed = batch.parseNetworkResponse(
+                ParseNetworkResponseBenchmark.BenchmarkPayloads.response(200, items.toString()));
+        assertTrue(parsed.isSuccess());
+        assertEquals(Arrays.asList(
+                "invalid parseNetworkError 400",
+                "unauthorized parseNetworkError 401",
+                "broken parseNetworkError 503"), calls);
+
+        calls.clear();
+        batch.deliverResponse(parsed.result);
+
+        assertEquals(Arrays.asList(
+                "ok onResponse",
+                "invalid onBadRequestError",
+                "unauthorized onAuthFailureError",
+                "broken onServerError"), calls);
+    }
+}
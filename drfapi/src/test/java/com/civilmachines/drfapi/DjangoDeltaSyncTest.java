@@ -0,0 +1,172 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.Request;
+import com.android.volley.Response;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DjangoDeltaSyncTest {
+
+    private static final String ENDPOINT = "https://example.com/api/tasks/";
+    private static final String T1 = "2026-01-01T10:00:00Z";
+    private static final String T2 = "2026-01-01T11:00:00Z";
+    private static final String T3 = "2026-01-01T12:00:00Z";
+
+    private RecordingRequestQueue queue;
+    private DjangoDeltaSync sync;
+    private final List<String> merged = new ArrayList<>();
+    private final List<Object> removed = new ArrayList<>();
+    private final List<int[]> completed = new ArrayList<>();
+
+    private final DjangoDeltaSync.Listener listener = new DjangoDeltaSync.Listener() {
+        @Override
+        public void onSyncComplete(int updated, int deleted) {
+            completed.add(new int[]{updated, deleted});
+        }
+    };
+
+    @Before
+    public void setUp() {
+        queue = new RecordingRequestQueue();
+        sync = new DjangoDeltaSync(queue, new TestContext(), null, ENDPOINT, null) {
+            @Override
+            int merge(JSONArray changed, List<Object> tombstones) {
+                for (int i = 0; i < changed.length(); i++)
+                    merged.add(String.valueOf(changed.optJSONObject(i).opt("id")));
+                removed.addAll(tombstones);
+                return changed.length();
+            }
+        };
+    }
+
+    private static JSONObject task(int id, String modified) throws Exception {
+        return new JSONObject().put("id", id).put("modified", modified);
+    }
+
+    private static JSONObject page(String next, JSONObject... tasks) throws Exception {
+        JSONArray results = new JSONArray();
+        for (JSONObject task : tasks)
+            results.put(task);
+        return new JSONObject().put("next", next == null ? JSONObject.NULL : next).put("results", results);
+    }
+
+    private static String fromMark(String mark) {
+        return new DjangoURLBuilder(ENDPOINT).filter("modified__gte", mark).filter("ordering", "modified").build();
+    }
+
+    /**
+     * Parses body the way the network thread does and delivers it
+     *
+     * @return URL of the answered request
+     */
+    @SuppressWarnings("unchecked")
+    private String respond(Object body) {
+        DjangoBaseRequest request = (DjangoBaseRequest) queue.take();
+        Response response = request.parseNetworkResponse(
+                ParseNetworkResponseBenchmark.BenchmarkPayloads.response(200, body.toString()));
+        request.deliverResponse(response.result);
+        return request.getUrl();
+    }
+
+    @Test
+    public void firstSync_fetchesEverythingAndStoresMark() throws Exception {
+        sync.start(listener, null);
+
+        String url = respond(new JSONArray().put(task(1, T1)).put(task(2, T2)));
+
+        assertEquals(ENDPOINT + "?ordering=modified", url);
+        assertEquals(1, completed.size());
+        assertEquals(2, completed.get(0)[0]);
+        assertEquals(T2, sync.getHighWaterMark());
+        assertFalse(sync.isRunning());
+    }
+
+    @Test
+    public void nextSync_resumesInclusiveFromMarkAndSkipsMergedObjects() throws Exception {
+        sync.start(listener, null);
+        respond(new JSONArray().put(task(1, T1)).put(task(2, T2)).put(task(3, T2)));
+        merged.clear();
+
+        sync.start(listener, null);
+        String url = respond(new JSONArray().put(task(2, T2)).put(task(3, T2)).put(task(4, T2)).put(task(5, T3)));
+
+        assertEquals(fromMark(T2), url);
+        assertEquals(2, merged.size());
+        assertTrue(merged.contains("4") && merged.contains("5"));
+        assertEquals(2, completed.get(1)[0]);
+        assertEquals(T3, sync.getHighWaterMark());
+    }
+
+    @Test
+    public void pageNumberLink_isReplacedByNewestMark() throws Exception {
+        sync.start(listener, null);
+        respond(page(ENDPOINT + "?ordering=modified&page=2", task(1, T1), task(2, T2)));
+
+        String url = respond(page(null, task(2, T2), task(3, T3)));
+
+        assertEquals(fromMark(T2), url);
+        assertEquals(3, completed.get(0)[0]);
+        assertEquals(T3, sync.getHighWaterMark());
+    }
+
+    @Test
+    public void cursorLink_isFollowed() throws Exception {
+        String cursor = ENDPOINT + "?cursor=cD0yMDI2&ordering=modified";
+        sync.start(listener, null);
+        respond(page(cursor, task(1, T1)));
+
+        assertEquals(cursor, respond(page(null, task(2, T2))));
+    }
+
+    @Test
+    public void pageSharingOneTimestamp_followsPageLink() throws Exception {
+        sync.start(listener, null);
+        respond(new JSONArray().put(task(1, T1)));
+
+        sync.start(listener, null);
+        String second = ENDPOINT + "?modified__gte=" + T1 + "&ordering=modified&page=2";
+        respond(page(second, task(1, T1), task(2, T1)));
+
+        assertEquals(second, respond(page(null, task(3, T1))));
+        assertEquals(T1, sync.getHighWaterMark());
+        assertEquals(2, completed.get(1)[0]);
+    }
+
+    @Test
+    public void cancelledSync_resumesFromSavedPageAndKeepsMark() throws Exception {
+        sync.start(listener, null);
+        respond(page(ENDPOINT + "?ordering=modified&page=2", task(1, T1), task(2, T2)));
+        Request<?> stopped = queue.take();
+
+        stopped.cancel();
+
+        assertFalse(sync.isRunning());
+        assertNull(sync.getHighWaterMark());
+        assertTrue(sync.start(listener, null));
+        assertEquals(stopped.getUrl(), respond(page(null, task(2, T2), task(3, T3))));
+        assertEquals(T3, sync.getHighWaterMark());
+        assertEquals(3, merged.size());
+    }
+
+    @Test
+    public void tombstones_areDeleted() throws Exception {
+        sync.start(listener, null);
+
+        respond(new JSONArray().put(task(1, T1)).put(task(2, T2).put("is_deleted", true)));
+
+        assertEquals(1, merged.size());
+        assertEquals(1, removed.size());
+        assertEquals(1, completed.get(0)[1]);
+    }
+}
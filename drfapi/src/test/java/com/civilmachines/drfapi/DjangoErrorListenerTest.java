@@ -0,0 +1,58 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.ClientError;
+import com.android.volley.NoConnectionError;
+import com.android.volley.ServerError;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
+
+import org.junit.Test;
+
+import static com.civilmachines.drfapi.ParseNetworkResponseBenchmark.BenchmarkPayloads.response;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks which {@link DjangoErrorListener} callback each {@link VolleyError} ends in.
+ */
+public class DjangoErrorListenerTest {
+
+    private static String dispatch(VolleyError error) {
+        final String[] callback = new String[1];
+        new LoadHarness.RecordingErrorListener() {
+            @Override
+            void record(String name) {
+                callback[0] = name;
+            }
+        }.onErrorResponse(error);
+        return callback[0];
+    }
+
+    @Test
+    public void withoutResponse_dispatchesOnErrorClass() {
+        assertEquals("onTimeoutError", dispatch(new TimeoutError()));
+        assertEquals("onNoConnectionError", dispatch(new NoConnectionError()));
+        assertEquals("onAuthFailureError", dispatch(new AuthFailureError("No token")));
+        assertEquals("onDefaultError", dispatch(new VolleyError("Unknown")));
+    }
+
+    @Test
+    public void authFailure_withDetail_isForbidden() {
+        assertEquals("onForbiddenError", dispatch(new AuthFailureError(response(401,
+                "{\"detail\": \"Authentication credentials were not provided.\"}"))));
+        assertEquals("onAuthFailureError", dispatch(new AuthFailureError(response(401,
+                "Unauthorized", "text/plain"))));
+    }
+
+    @Test
+    public void clientError_dispatchesOnStatusCode() {
+        assertEquals("onBadRequestError", dispatch(new ClientError(response(400,
+                "{\"email\": [\"Enter a valid email address.\"]}"))));
+        assertEquals("onNotFoundError", dispatch(new ClientError(response(404,
+                "<h1>Not Found</h1>", "text/html; charset=utf-8"))));
+        assertEquals("onForbiddenError", dispatch(new ClientError(response(403,
+                "{\"detail\": \"You do not have permission to perform this action.\"}"))));
+        assertEquals("onServerError", dispatch(new ServerError(response(500,
+                "<h1>Server Error (500)</h1>", "text/html"))));
+    }
+}
@@ -0,0 +1,193 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.ExecutorDelivery;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.HurlStack;
+import com.android.volley.toolbox.NoCache;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class DjangoMetadataCacheTest {
+
+    private static final String URL = "https://example.com/api/tasks/";
+
+    private static final String FIELDS = "{"
+            + "\"id\": {\"type\": \"integer\", \"required\": false, \"read_only\": true},"
+            + "\"title\": {\"type\": \"string\", \"required\": true, \"read_only\": false, \"max_length\": 5},"
+            + "\"estimate\": {\"type\": \"integer\", \"required\": false, \"read_only\": false,"
+            + " \"min_value\": 1, \"max_value\": 10},"
+            + "\"status\": {\"type\": \"choice\", \"required\": false, \"read_only\": false,"
+            + " \"choices\": [{\"value\": \"open\", \"display_name\": \"Open\"},"
+            + " {\"value\": \"done\", \"display_name\": \"Done\"}]},"
+            + "\"owner\": {\"type\": \"nested object\", \"required\": false, \"read_only\": false,"
+            + " \"children\": {\"name\": {\"type\": \"string\", \"required\": true, \"read_only\": false},"
+            + " \"email\": {\"type\": \"email\", \"required\": false, \"read_only\": false}}}"
+            + "}";
+
+    /**
+     * Records requests instead of sending them
+     */
+    private static class RecordingQueue extends RequestQueue {
+
+        final List<Request<?>> added = new ArrayList<>();
+
+        RecordingQueue() {
+            super(new NoCache(), new BasicNetwork(new HurlStack()), 1, new ExecutorDelivery(new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    command.run();
+                }
+            }));
+        }
+
+        @Override
+        public <T> Request<T> add(Request<T> request) {
+            added.add(request);
+            return request;
+        }
+
+        void respond(JSONObject response) {
+            ((DjangoJSONObjectRequest) added.remove(0)).deliverResponse(response);
+        }
+    }
+
+    private TestContext context;
+    private RecordingQueue queue;
+    private DjangoMetadataCache metadata;
+
+    @Before
+    public void setUp() throws Exception {
+        context = new TestContext();
+        queue = new RecordingQueue();
+        metadata = new DjangoMetadataCache(queue, context, null, "1");
+        metadata.refresh(URL, null, null);
+        JSONObject fields = new JSONObject(FIELDS);
+        queue.respond(new JSONObject().put("actions", new JSONObject().put("POST", fields).put("PUT", fields)));
+    }
+
+    private JSONObject validTask() throws Exception {
+        return new JSONObject()
+                .put("title", "Ship")
+                .put("estimate", 3)
+                .put("status", "open")
+                .put("owner", new JSONObject().put("name", "Ann").put("email", "ann@example.com"));
+    }
+
+    private static String message(JSONObject errors, String field) throws Exception {
+        return errors.getJSONArray(field).getString(0);
+    }
+
+    @Test
+    public void validBody_hasNoErrors() throws Exception {
+        assertNull(metadata.validate(URL, Request.Method.POST, validTask()));
+    }
+
+    @Test
+    public void missingRequiredField_isReported() throws Exception {
+        JSONObject body = validTask();
+        body.remove("title");
+
+        JSONObject errors = metadata.validate(URL, Request.Method.POST, body);
+
+        assertEquals(1, errors.length());
+        assertEquals(DjangoMetadataCache.messageRequired, message(errors, "title"));
+    }
+
+    @Test
+    public void wrongType_isReported() throws Exception {
+        JSONObject errors = metadata.validate(URL, Request.Method.POST, validTask().put("estimate", "many"));
+
+        assertEquals(DjangoMetadataCache.messageInvalidInteger, message(errors, "estimate"));
+    }
+
+    @Test
+    public void outOfRange_isReported() throws Exception {
+        JSONObject errors = metadata.validate(URL, Request.Method.POST, validTask().put("estimate", 11));
+
+        assertEquals(String.format(DjangoMetadataCache.messageMaxValue, 10), message(errors, "estimate"));
+        assertNull(metadata.validate(URL, Request.Method.POST, validTask().put("estimate", "10")));
+    }
+
+    @Test
+    public void invalidChoice_isReported() throws Exception {
+        JSONObject errors = metadata.validate(URL, Request.Method.POST, validTask().put("status", "closed"));
+
+        assertEquals(String.format(DjangoMetadataCache.messageInvalidChoice, "closed"), message(errors, "status"));
+    }
+
+    @Test
+    public void length_isCheckedAfterTrimming() throws Exception {
+        assertNull(metadata.validate(URL, Request.Method.POST, validTask().put("title", "  Ship  ")));
+
+        JSONObject errors = metadata.validate(URL, Request.Method.POST, validTask().put("title", "Shipping"));
+        assertEquals(String.format(DjangoMetadataCache.messageMaxLength, 5), message(errors, "title"));
+    }
+
+    @Test
+    public void nestedErrors_keepTheirStructure() throws Exception {
+        JSONObject body = validTask().put("owner", new JSONObject().put("email", "ann"));
+
+        JSONObject owner = metadata.validate(URL, Request.Method.POST, body).getJSONObject("owner");
+
+        assertEquals(DjangoMetadataCache.messageRequired, message(owner, "name"));
+        assertEquals(DjangoMetadataCache.messageInvalidEmail, message(owner, "email"));
+    }
+
+    @Test
+    public void patch_requiresNoFields_evenInNestedObjects() throws Exception {
+        JSONObject body = new JSONObject().put("owner", new JSONObject().put("email", "ann@example.com"));
+
+        assertNull(metadata.validate(URL, Request.Method.PATCH, body));
+        assertNotNull(metadata.validate(URL, Request.Method.PUT, body));
+        assertEquals(DjangoMetadataCache.messageInvalidInteger,
+                message(metadata.validate(URL, Request.Method.PATCH, new JSONObject().put("estimate", 1.5)), "estimate"));
+    }
+
+    @Test
+    public void schema_isStoredWithoutBlockingOnDisk() {
+        InMemorySharedPreferences preferences = (InMemorySharedPreferences) context.getSharedPreferences(
+                DjangoMetadataCache.metadataPreference, 0);
+
+        assertEquals(1, preferences.applies.get());
+        assertNotNull(preferences.getString(URL, null));
+    }
+
+    @Test
+    public void schema_isStoredPerSession() throws Exception {
+        DjangoSession work = new DjangoSession(context, "work");
+
+        assertNotNull(new DjangoMetadataCache(queue, context, null, "1").getActions(URL));
+        assertNull(new DjangoMetadataCache(queue, context, work, "1").getActions(URL));
+        assertNull(new DjangoMetadataCache(queue, context, null, "2").getActions(URL));
+    }
+
+    @Test
+    public void schemaWithoutActions_isNotStored() throws Exception {
+        DjangoMetadataCache loggedOut = new DjangoMetadataCache(queue, context,
+                new DjangoSession(context, "guest"), "1");
+
+        loggedOut.fetch(URL, null, null);
+        Request<?> options = queue.added.get(0);
+        queue.respond(new JSONObject().put("name", "Task List").put("renders", new JSONArray()));
+
+        assertEquals(Request.Method.OPTIONS, options.getMethod());
+        assertNull(loggedOut.getActions(URL));
+
+        loggedOut.fetch(URL, null, null);
+        assertEquals(1, queue.added.size());
+        assertEquals(options.getUrl(), queue.added.get(0).getUrl());
+    }
+}
@@ -0,0 +1,128 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.RetryPolicy;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DjangoNetworkQualityTest {
+
+    private DjangoNetworkQuality quality;
+
+    @Before
+    public void setUp() {
+        quality = DjangoNetworkQuality.getInstance();
+        quality.reset();
+    }
+
+    @After
+    public void tearDown() {
+        quality.reset();
+        quality.setTimeoutBounds(DjangoNetworkQuality.DEFAULT_MIN_TIMEOUT_MS,
+                DjangoNetworkQuality.DEFAULT_MAX_TIMEOUT_MS);
+        quality.setAdaptiveTimeouts(false);
+    }
+
+    private void sample(long networkTimeMs) {
+        quality.record(new NetworkResponse(200, new byte[16], Collections.<String, String>emptyMap(),
+                false, networkTimeMs));
+    }
+
+    private static boolean retries(RetryPolicy policy) {
+        try {
+            policy.retry(new TimeoutError());
+            return true;
+        } catch (VolleyError e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void firstSample_setsRttAndHalfOfItAsVariation() {
+        sample(400);
+
+        assertEquals(400, quality.getRoundTripTimeMs());
+        // 400 + 4 * 200
+        assertEquals(1200, quality.getTimeoutMs());
+    }
+
+    @Test
+    public void laterSamples_followRfc6298() {
+        sample(400);
+        sample(800);
+
+        // SRTT = 7/8 * 400 + 1/8 * 800, RTTVAR = 3/4 * 200 + 1/4 * |400 - 800|
+        assertEquals(450, quality.getRoundTripTimeMs());
+        assertEquals(450 + 4 * 250, quality.getTimeoutMs());
+    }
+
+    @Test
+    public void fastLink_getsTimeoutBelowVolleyDefault() {
+        sample(40);
+
+        assertEquals(DjangoNetworkQuality.DEFAULT_MIN_TIMEOUT_MS, quality.getTimeoutMs());
+        assertTrue(quality.getTimeoutMs() < DefaultRetryPolicy.DEFAULT_TIMEOUT_MS);
+    }
+
+    @Test
+    public void timeoutBeforeFirstSample_isClampedToBounds() {
+        assertEquals(DefaultRetryPolicy.DEFAULT_TIMEOUT_MS, quality.getTimeoutMs());
+
+        quality.setTimeoutBounds(500, 1000);
+        assertEquals(1000, quality.getTimeoutMs());
+
+        quality.setTimeoutBounds(4000, 8000);
+        assertEquals(4000, quality.getTimeoutMs());
+    }
+
+    @Test
+    public void timeouts_doubleUntilNextResponse() {
+        sample(400);
+        quality.recordTimeout();
+        quality.recordTimeout();
+        quality.recordTimeout();
+
+        assertEquals(4 * 1200, quality.getTimeoutMs());
+
+        sample(400);
+        assertTrue(quality.getTimeoutMs() < 2 * 1200);
+    }
+
+    @Test
+    public void writes_areNotRetried() {
+        assertTrue(retries(quality.newRetryPolicy(Request.Method.GET)));
+        assertTrue(retries(quality.newRetryPolicy(Request.Method.PUT)));
+        assertTrue(retries(quality.newRetryPolicy(Request.Method.DELETE)));
+        assertFalse(retries(quality.newRetryPolicy(Request.Method.POST)));
+        assertFalse(retries(quality.newRetryPolicy(Request.Method.PATCH)));
+    }
+
+    @Test
+    public void adaptiveRequests_getPolicyForTheirMethod() {
+        quality.setAdaptiveTimeouts(true);
+        sample(400);
+        TestContext context = new TestContext();
+
+        DjangoJSONObjectRequest get = new DjangoJSONObjectRequest(Request.Method.GET,
+                "http://localhost/api/users/", null, null, null, context);
+        DjangoJSONObjectRequest post = new DjangoJSONObjectRequest(Request.Method.POST,
+                "http://localhost/api/users/", new JSONObject(), null, null, context);
+
+        assertEquals(1200, get.getTimeoutMs());
+        assertTrue(retries(get.getRetryPolicy()));
+        assertFalse(retries(post.getRetryPolicy()));
+    }
+}
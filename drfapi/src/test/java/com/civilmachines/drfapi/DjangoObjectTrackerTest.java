@@ -0,0 +1,99 @@
+package com.civilmachines.drfapi;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DjangoObjectTrackerTest {
+
+    private static final String ORIGINAL = "{\"id\": 1, \"title\": \"Draft\", \"price\": 10,"
+            + " \"owner\": {\"id\": 7, \"name\": \"Ann\"}, \"tags\": [\"a\", \"b\"], \"note\": \"keep\"}";
+
+    @Test
+    public void unchangedFields_areLeftOut() throws Exception {
+        JSONObject modified = new JSONObject(ORIGINAL);
+        modified.put("price", 10.0);
+
+        assertEquals(0, DjangoObjectTracker.diff(new JSONObject(ORIGINAL), modified).length());
+    }
+
+    @Test
+    public void changedField_isSentAlone() throws Exception {
+        JSONObject modified = new JSONObject(ORIGINAL);
+        modified.put("title", "Final");
+
+        JSONObject diff = DjangoObjectTracker.diff(new JSONObject(ORIGINAL), modified);
+
+        assertEquals(1, diff.length());
+        assertEquals("Final", diff.getString("title"));
+    }
+
+    @Test
+    public void nestedObject_isSentWholeWhenAnyFieldChanged() throws Exception {
+        JSONObject modified = new JSONObject(ORIGINAL);
+        modified.getJSONObject("owner").put("name", "Bob");
+
+        JSONObject diff = DjangoObjectTracker.diff(new JSONObject(ORIGINAL), modified);
+
+        assertEquals(1, diff.length());
+        JSONObject owner = diff.getJSONObject("owner");
+        assertEquals(7, owner.getInt("id"));
+        assertEquals("Bob", owner.getString("name"));
+    }
+
+    @Test
+    public void array_isSentWholeWhenOrderOrLengthChanged() throws Exception {
+        JSONObject reordered = new JSONObject(ORIGINAL);
+        reordered.getJSONArray("tags").put(0, "b").put(1, "a");
+        JSONObject appended = new JSONObject(ORIGINAL);
+        appended.getJSONArray("tags").put("c");
+
+        assertEquals(2, DjangoObjectTracker.diff(new JSONObject(ORIGINAL), reordered)
+                .getJSONArray("tags").length());
+        assertEquals(3, DjangoObjectTracker.diff(new JSONObject(ORIGINAL), appended)
+                .getJSONArray("tags").length());
+    }
+
+    @Test
+    public void missingKeys_areLeftOut() throws Exception {
+        JSONObject partial = new JSONObject();
+        partial.put("title", "Final");
+
+        JSONObject diff = DjangoObjectTracker.diff(new JSONObject(ORIGINAL), partial);
+
+        assertEquals(1, diff.length());
+        assertFalse(diff.has("note"));
+        assertFalse(diff.has("owner"));
+    }
+
+    @Test
+    public void removedKeys_areSentAsNull() throws Exception {
+        JSONObject modified = new JSONObject(ORIGINAL);
+        modified.remove("note");
+
+        JSONObject diff = DjangoObjectTracker.diff(new JSONObject(ORIGINAL), modified,
+                Collections.singletonList("note"));
+
+        assertEquals(1, diff.length());
+        assertTrue(diff.isNull("note"));
+    }
+
+    @Test
+    public void removedKeys_winOverModifiedValues() throws Exception {
+        JSONObject modified = new JSONObject(ORIGINAL);
+        modified.put("title", "Final");
+
+        JSONObject diff = DjangoObjectTracker.diff(new JSONObject(ORIGINAL), modified,
+                Arrays.asList("title", "note"));
+
+        assertEquals(2, diff.length());
+        assertTrue(diff.isNull("title"));
+        assertTrue(diff.isNull("note"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class DjangoParsedResponseCacheTest {
+
+    private static final String URL = "http://localhost/api/users/1/";
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(Charset.forName("UTF-8"));
+    }
+
+    @Test
+    public void sameBody_isServedFromCache() {
+        DjangoParsedResponseCache cache = new DjangoParsedResponseCache(DjangoParsedResponseCache.DEFAULT_MAX_SIZE);
+        JSONObject parsed = new JSONObject();
+        cache.put(URL, bytes("{\"id\": 1}"), parsed);
+
+        assertSame(parsed, cache.get(URL, bytes("{\"id\": 1}"), JSONObject.class));
+        assertNull(cache.get(URL, bytes("{\"id\": 2}"), JSONObject.class));
+        assertNull(cache.get(URL + "?fields=id", bytes("{\"id\": 1}"), JSONObject.class));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void newBody_replacesEntryOfUrl() {
+        byte[] first = bytes("{\"id\": 1, \"v\": 1}");
+        byte[] second = bytes("{\"id\": 1, \"v\": 2}");
+        DjangoParsedResponseCache cache = new DjangoParsedResponseCache(DjangoParsedResponseCache.DEFAULT_MAX_SIZE);
+        cache.put(URL, first, "first");
+        int entrySize = cache.size();
+
+        cache.put(URL, second, "second");
+
+        assertEquals(entrySize, cache.size());
+        assertNull(cache.get(URL, first, String.class));
+        assertEquals("second", cache.get(URL, second, String.class));
+    }
+
+    @Test
+    public void leastRecentlyUsed_isEvictedFirst() {
+        byte[] body = bytes("{\"id\": 1}");
+        int entrySize = body.length * DjangoParsedResponseCache.sizeFactor + 64;
+        DjangoParsedResponseCache cache = new DjangoParsedResponseCache(entrySize * 2);
+        cache.put("a", body, "a");
+        cache.put("b", body, "b");
+        cache.get("a", body, String.class);
+
+        cache.put("c", body, "c");
+
+        assertEquals("a", cache.get("a", body, String.class));
+        assertNull(cache.get("b", body, String.class));
+        assertEquals("c", cache.get("c", body, String.class));
+        assertEquals(entrySize * 2, cache.size());
+    }
+
+    @Test
+    public void repeatedResponse_isParsedOnce() {
+        TestContext context = new TestContext();
+        DjangoParsedResponseCache cache = new DjangoParsedResponseCache(DjangoParsedResponseCache.DEFAULT_MAX_SIZE);
+        NetworkResponse response = ParseNetworkResponseBenchmark.BenchmarkPayloads.response(200, "{\"id\": 1}");
+
+        DjangoJSONObjectRequest first = new DjangoJSONObjectRequest(Request.Method.GET, URL, null, null, null, context);
+        first.setParsedResponseCache(cache);
+        DjangoJSONObjectRequest second = new DjangoJSONObjectRequest(Request.Method.GET, URL, null, null, null, context);
+        second.setParsedResponseCache(cache);
+
+        assertSame(first.parseNetworkResponse(response).result, second.parseNetworkResponse(response).result);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void trackedRequest_getsItsOwnCopy() {
+        TestContext context = new TestContext();
+        DjangoParsedResponseCache cache = new DjangoParsedResponseCache(DjangoParsedResponseCache.DEFAULT_MAX_SIZE);
+        NetworkResponse response = ParseNetworkResponseBenchmark.BenchmarkPayloads.response(200, "{\"id\": 1}");
+
+        DjangoJSONObjectRequest shared = new DjangoJSONObjectRequest(Request.Method.GET, URL, null, null, null, context);
+        shared.setParsedResponseCache(cache);
+        DjangoJSONObjectRequest tracked = new DjangoJSONObjectRequest(Request.Method.GET, URL, null, null, null, context);
+        tracked.setParsedResponseCache(cache);
+        tracked.setObjectTracker(new DjangoObjectTracker(10));
+
+        assertNotSame(shared.parseNetworkResponse(response).result, tracked.parseNetworkResponse(response).result);
+        assertEquals(0, cache.getHitCount());
+    }
+
+    /**
+     * Records what would be written instead of opening a database
+     */
+    private static class RecordingResourceCache extends DjangoResourceCache {
+
+        final List<String> calls = new ArrayList<>();
+
+        RecordingResourceCache(TestContext context) {
+            super(context, (DjangoSession) null, "users", "id");
+        }
+
+        @Override
+        public int upsert(JSONArray objects) {
+            calls.add("upsert " + objects.length());
+            return objects.length();
+        }
+
+        @Override
+        public int replace(JSONArray objects) {
+            calls.add("replace " + objects.length());
+            return objects.length();
+        }
+    }
+
+    @Test
+    public void cachedResponse_isNotStoredAgain() {
+        TestContext context = new TestContext();
+        DjangoParsedResponseCache cache = new DjangoParsedResponseCache(DjangoParsedResponseCache.DEFAULT_MAX_SIZE);
+        RecordingResourceCache resources = new RecordingResourceCache(context);
+        NetworkResponse response = ParseNetworkResponseBenchmark.BenchmarkPayloads.response(200, "[{\"id\": 1}]");
+
+        for (int i = 0; i < 2; i++) {
+            DjangoJSONArrayResponseRequest request = new DjangoJSONArrayResponseRequest(URL, null, null, null, context);
+            request.setParsedResponseCache(cache);
+            request.setResourceCache(resources, i == 0);
+            request.parseNetworkResponse(response);
+        }
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, resources.calls.size());
+        assertEquals("replace 1", resources.calls.get(0));
+    }
+}
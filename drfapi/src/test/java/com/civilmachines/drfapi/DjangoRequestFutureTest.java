@@ -0,0 +1,110 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.Request;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DjangoRequestFutureTest {
+
+    private DjangoRequestFuture<JSONObject> future;
+    private DjangoJSONObjectRequest request;
+
+    @Before
+    public void setUp() {
+        future = DjangoRequestFuture.newFuture();
+        request = new DjangoJSONObjectRequest(Request.Method.GET, "http://localhost/api/users/1/", null,
+                future, future, new TestContext());
+        future.setRequest(request);
+    }
+
+    /**
+     * Calls get() without a timeout on another thread and returns what it threw
+     */
+    private Thread waitInBackground(final AtomicReference<Throwable> thrown, final CountDownLatch waiting) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                waiting.countDown();
+                try {
+                    future.get();
+                } catch (Throwable e) {
+                    thrown.set(e);
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void response_isReturned() throws Exception {
+        JSONObject response = new JSONObject().put("id", 1);
+        request.deliverResponse(response);
+
+        assertSame(response, future.get(1, TimeUnit.SECONDS));
+        assertTrue(future.isDone());
+    }
+
+    @Test
+    public void requestCancelledElsewhere_endsGetWithoutTimeout() throws Exception {
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        CountDownLatch waiting = new CountDownLatch(1);
+        Thread thread = waitInBackground(thrown, waiting);
+        waiting.await();
+        Thread.sleep(50);
+
+        request.cancel();
+        thread.join(2000);
+
+        assertFalse(thread.isAlive());
+        assertTrue(thrown.get() instanceof CancellationException);
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void requestCancelledBeforeSetRequest_isSeen() throws Exception {
+        DjangoRequestFuture<JSONObject> late = DjangoRequestFuture.newFuture();
+        request.cancel();
+        late.setRequest(request);
+
+        try {
+            late.get();
+            fail();
+        } catch (CancellationException expected) {
+            assertTrue(late.isDone());
+        }
+    }
+
+    @Test
+    public void cancel_endsGetWithoutTimeout() throws Exception {
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        CountDownLatch waiting = new CountDownLatch(1);
+        Thread thread = waitInBackground(thrown, waiting);
+        waiting.await();
+        Thread.sleep(50);
+
+        assertTrue(future.cancel(true));
+        thread.join(2000);
+
+        assertFalse(thread.isAlive());
+        assertTrue(thrown.get() instanceof CancellationException);
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void noResponse_timesOut() throws Exception {
+        future.get(20, TimeUnit.MILLISECONDS);
+    }
+}
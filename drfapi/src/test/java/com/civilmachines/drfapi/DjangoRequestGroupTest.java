@@ -0,0 +1,206 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.Request;
+import com.android.volley.VolleyError;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DjangoRequestGroupTest {
+
+    /**
+     * Records group callbacks as text
+     */
+    private static class RecordingListener implements DjangoRequestGroup.Listener {
+
+        final List<String> calls = new ArrayList<>();
+        List<Object> responses;
+        List<VolleyError> errors;
+        DjangoBaseRequest<?> failed;
+
+        @Override
+        public void onComplete(List<Object> responses, List<VolleyError> errors) {
+            calls.add("complete");
+            this.responses = responses;
+            this.errors = errors;
+        }
+
+        @Override
+        public void onFailure(DjangoBaseRequest<?> request, VolleyError error) {
+            calls.add("failure");
+            failed = request;
+        }
+    }
+
+    private final List<Runnable> delivered = new ArrayList<>();
+
+    private TestContext context;
+    private RecordingRequestQueue queue;
+    private RecordingListener listener;
+    private DjangoRequestGroup group;
+
+    @Before
+    public void setUp() {
+        context = new TestContext();
+        queue = new RecordingRequestQueue();
+        listener = new RecordingListener();
+        group = new DjangoRequestGroup(queue, listener, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                delivered.add(command);
+            }
+        });
+    }
+
+    private DjangoJSONObjectRequest request(int id) {
+        return new DjangoJSONObjectRequest(Request.Method.GET, "http://localhost/api/users/" + id + "/",
+                null, null, null, context);
+    }
+
+    /**
+     * Runs callbacks posted to the main thread so far
+     */
+    private void runMainThread() {
+        List<Runnable> pending = new ArrayList<>(delivered);
+        delivered.clear();
+        for (Runnable runnable : pending)
+            runnable.run();
+    }
+
+    @Test
+    public void allSucceeding_deliversResponsesInOrder() throws Exception {
+        DjangoJSONObjectRequest first = request(1);
+        DjangoJSONObjectRequest second = request(2);
+        group.add(first);
+        group.add(second);
+        group.start();
+        JSONObject one = new JSONObject().put("id", 1);
+        JSONObject two = new JSONObject().put("id", 2);
+
+        second.deliverResponse(two);
+        runMainThread();
+        assertTrue(listener.calls.isEmpty());
+
+        first.deliverResponse(one);
+        runMainThread();
+
+        assertEquals(Arrays.<Request<?>>asList(first, second), queue.added);
+        assertEquals(Arrays.asList("complete"), listener.calls);
+        assertEquals(Arrays.<Object>asList(one, two), listener.responses);
+        assertEquals(Arrays.<VolleyError>asList(null, null), listener.errors);
+        assertTrue(group.isFinished());
+    }
+
+    @Test
+    public void failFast_cancelsRemainingRequests() {
+        DjangoJSONObjectRequest first = request(1);
+        DjangoJSONObjectRequest second = request(2);
+        group.add(first);
+        group.add(second);
+        group.start();
+
+        first.deliverError(new VolleyError("boom"));
+        runMainThread();
+
+        assertEquals(Arrays.asList("failure"), listener.calls);
+        assertSame(first, listener.failed);
+        assertTrue(second.isCanceled());
+    }
+
+    @Test
+    public void withoutFailFast_errorsAreReportedOnComplete() throws Exception {
+        group.setFailFast(false);
+        DjangoJSONObjectRequest first = request(1);
+        DjangoJSONObjectRequest second = request(2);
+        group.add(first);
+        group.add(second);
+        group.start();
+        VolleyError error = new VolleyError("boom");
+
+        first.deliverError(error);
+        second.deliverResponse(new JSONObject());
+        runMainThread();
+
+        assertEquals(Arrays.asList("complete"), listener.calls);
+        assertSame(error, listener.errors.get(0));
+        assertNull(listener.responses.get(0));
+        assertFalse(second.isCanceled());
+    }
+
+    @Test
+    public void memberCancelledBeforeDispatch_failsTheGroup() {
+        DjangoJSONObjectRequest first = request(1);
+        DjangoJSONObjectRequest second = request(2);
+        group.add(first);
+        group.add(second);
+        group.start();
+
+        // Never reaches the network, so Volley never reports it as finished
+        second.cancel();
+        runMainThread();
+
+        assertEquals(Arrays.asList("failure"), listener.calls);
+        assertSame(second, listener.failed);
+        assertTrue(first.isCanceled());
+    }
+
+    @Test
+    public void memberCancelled_countsAsErrorWithoutFailFast() throws Exception {
+        group.setFailFast(false);
+        DjangoJSONObjectRequest first = request(1);
+        DjangoJSONObjectRequest second = request(2);
+        group.add(first);
+        group.add(second);
+        group.start();
+
+        second.cancel();
+        first.deliverResponse(new JSONObject());
+        runMainThread();
+
+        assertEquals(Arrays.asList("complete"), listener.calls);
+        assertNull(listener.errors.get(0));
+        assertNotNull(listener.errors.get(1));
+    }
+
+    @Test
+    public void cancellingGroup_suppressesPendingCallback() throws Exception {
+        DjangoJSONObjectRequest only = request(1);
+        group.add(only);
+        group.start();
+
+        only.deliverResponse(new JSONObject());
+        group.cancel();
+        runMainThread();
+
+        assertTrue(listener.calls.isEmpty());
+    }
+
+    @Test
+    public void memberCancelledAfterResult_isIgnored() throws Exception {
+        DjangoJSONObjectRequest first = request(1);
+        DjangoJSONObjectRequest second = request(2);
+        group.add(first);
+        group.add(second);
+        group.start();
+
+        first.deliverResponse(new JSONObject());
+        first.cancel();
+        second.deliverResponse(new JSONObject());
+        runMainThread();
+
+        assertEquals(Arrays.asList("complete"), listener.calls);
+    }
+}
@@ -0,0 +1,112 @@
+package com.civilmachines.drfapi;
+
+import android.app.Activity;
+
+import com.android.volley.Request;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DjangoRequestLifecycleTest {
+
+    private static class TestActivity extends Activity {
+
+        boolean finishing;
+        boolean changingConfigurations;
+
+        @Override
+        public boolean isFinishing() {
+            return finishing;
+        }
+
+        @Override
+        public boolean isChangingConfigurations() {
+            return changingConfigurations;
+        }
+    }
+
+    private TestActivity activity;
+
+    @Before
+    public void setUp() {
+        activity = new TestActivity();
+    }
+
+    @After
+    public void tearDown() {
+        DjangoRequestLifecycle.cancelOnConfigurationChange = false;
+    }
+
+    private DjangoJSONObjectRequest bound() {
+        DjangoJSONObjectRequest request = new DjangoJSONObjectRequest(Request.Method.GET,
+                "http://localhost/api/users/", null, null, null, new TestContext());
+        DjangoRequestLifecycle.bind(activity, request);
+        return request;
+    }
+
+    private void destroy() {
+        DjangoRequestLifecycle.getInstance().onActivityDestroyed(activity);
+    }
+
+    @Test
+    public void destroyedActivity_cancelsItsRequests() {
+        DjangoJSONObjectRequest first = bound();
+        DjangoJSONObjectRequest second = bound();
+
+        destroy();
+
+        assertTrue(first.isCanceled());
+        assertTrue(second.isCanceled());
+    }
+
+    @Test
+    public void finishingActivity_cancelsRightAway() {
+        activity.finishing = true;
+
+        assertTrue(bound().isCanceled());
+    }
+
+    @Test
+    public void configurationChange_keepsRequestsRunning() {
+        DjangoJSONObjectRequest request = bound();
+        activity.changingConfigurations = true;
+
+        destroy();
+        assertFalse(request.isCanceled());
+
+        // No longer bound to the old Activity
+        activity.changingConfigurations = false;
+        destroy();
+        assertFalse(request.isCanceled());
+    }
+
+    @Test
+    public void configurationChange_cancelsWhenConfigured() {
+        DjangoRequestLifecycle.cancelOnConfigurationChange = true;
+        DjangoJSONObjectRequest request = bound();
+        activity.changingConfigurations = true;
+
+        destroy();
+
+        assertTrue(request.isCanceled());
+    }
+
+    @Test
+    public void cancelAll_cancelsOnlyThatActivity() {
+        DjangoJSONObjectRequest request = bound();
+        TestActivity other = new TestActivity();
+        DjangoJSONObjectRequest otherRequest = new DjangoJSONObjectRequest(Request.Method.GET,
+                "http://localhost/api/users/", null, null, null, new TestContext());
+        DjangoRequestLifecycle.bind(other, otherRequest);
+
+        DjangoRequestLifecycle.cancelAll(activity);
+
+        assertTrue(request.isCanceled());
+        assertFalse(otherRequest.isCanceled());
+        DjangoRequestLifecycle.cancelAll(other);
+    }
+}
@@ -0,0 +1,113 @@
+package com.civilmachines.drfapi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.ExecutorDelivery;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.HurlStack;
+import com.android.volley.toolbox.NoCache;
+
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs {@link LoadHarness} against {@link FakeDjangoServer} and fails when a request does not
+ * finish or ends in a callback other than the one its scenario expects.
+ */
+public class DjangoRequestLoadTest {
+
+    private FakeDjangoServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeDjangoServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrentRequests_routeEveryCallback() throws Exception {
+        LoadHarness.Report report = new LoadHarness(server).run(350, 8, 60000);
+
+        assertEquals(0, report.getUnfinished());
+        assertEquals(350, report.getCompleted());
+        assertTrue(report.getMisrouted().toString(), report.getMisrouted().isEmpty());
+    }
+
+    @Test
+    public void paginatedRequests_allFinishUnderLoad() throws Exception {
+        // Latency depends on the machine, so it is only reported, never asserted
+        LoadHarness.Report report = new LoadHarness(server).run(500, 16,
+                Collections.singletonList(LoadHarness.Scenario.PAGE), 60000);
+
+        assertEquals(report.toString(), 0, report.getUnfinished());
+        assertEquals(report.toString(), 500, report.getCompleted());
+        assertTrue(report.getMisrouted().toString(), report.getMisrouted().isEmpty());
+    }
+
+    @Test
+    public void expiredToken_failsAsAuthFailureError() throws Exception {
+        TestContext context = new TestContext();
+        new UserSharedPreferenceAdapter(context).saveToken(FakeDjangoServer.issueToken(1, -60));
+
+        final VolleyError[] received = new VolleyError[1];
+        final String[] callback = new String[1];
+        final CountDownLatch done = new CountDownLatch(1);
+        LoadHarness.RecordingErrorListener errorListener = new LoadHarness.RecordingErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                received[0] = error;
+                super.onErrorResponse(error);
+            }
+
+            @Override
+            void record(String name) {
+                callback[0] = name;
+                done.countDown();
+            }
+        };
+
+        ExecutorService delivery = Executors.newSingleThreadExecutor();
+        RequestQueue queue = new RequestQueue(new NoCache(), new BasicNetwork(new HurlStack()), 1,
+                new ExecutorDelivery(delivery));
+        queue.start();
+        try {
+            queue.add(new DjangoJSONObjectRequest(server.url("/api/items/"), null,
+                    new Response.Listener<JSONObject>() {
+                        @Override
+                        public void onResponse(JSONObject response) {
+                            done.countDown();
+                        }
+                    }, errorListener, context));
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            queue.stop();
+            delivery.shutdown();
+        }
+
+        // BasicNetwork turns 401 and 403 into AuthFailureError, not ClientError
+        assertNotNull(received[0]);
+        assertTrue(received[0].getClass().getName(), received[0] instanceof AuthFailureError);
+        assertEquals(401, received[0].networkResponse.statusCode);
+        assertEquals("onForbiddenError", callback[0]);
+    }
+}
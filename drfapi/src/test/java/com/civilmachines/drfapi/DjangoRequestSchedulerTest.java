@@ -0,0 +1,196 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DjangoRequestSchedulerTest {
+
+    private static class TestRequest extends Request<Object> {
+
+        private final Priority priority;
+
+        TestRequest(String url, Priority priority) {
+            super(Method.GET, url, null);
+            this.priority = priority;
+        }
+
+        @Override
+        public Priority getPriority() {
+            return priority;
+        }
+
+        @Override
+        protected Response<Object> parseNetworkResponse(NetworkResponse response) {
+            return null;
+        }
+
+        @Override
+        protected void deliverResponse(Object response) {
+        }
+    }
+
+    private RecordingRequestQueue queue;
+    private DjangoRequestScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        queue = new RecordingRequestQueue();
+        scheduler = new DjangoRequestScheduler(queue);
+        scheduler.setMaxPerHost(2);
+        scheduler.setReservedForHigh(0);
+    }
+
+    private TestRequest request(String host, Request.Priority priority) {
+        return new TestRequest("https://" + host + "/api/items/", priority);
+    }
+
+    @Test
+    public void limit_isPerHost() {
+        TestRequest a1 = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest a2 = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest a3 = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest b1 = request("b.example.com", Request.Priority.NORMAL);
+
+        scheduler.add(a1);
+        scheduler.add(a2);
+        scheduler.add(a3);
+        scheduler.add(b1);
+
+        assertEquals(Arrays.<Request<?>>asList(a1, a2, b1), queue.added);
+        assertEquals(2, scheduler.getInFlightCount("a.example.com"));
+        assertEquals(1, scheduler.getWaitingCount("a.example.com"));
+        assertEquals(1, scheduler.getInFlightCount("b.example.com"));
+    }
+
+    @Test
+    public void waiting_isReleasedByPriorityThenOrder() {
+        scheduler.setMaxPerHost(1);
+        TestRequest first = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest low = request("a.example.com", Request.Priority.LOW);
+        TestRequest normal = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest high = request("a.example.com", Request.Priority.HIGH);
+        TestRequest laterNormal = request("a.example.com", Request.Priority.NORMAL);
+        scheduler.add(first);
+        scheduler.add(low);
+        scheduler.add(normal);
+        scheduler.add(high);
+        scheduler.add(laterNormal);
+
+        queue.finish(first);
+        queue.finish(high);
+        queue.finish(normal);
+        queue.finish(laterNormal);
+
+        assertEquals(Arrays.<Request<?>>asList(first, high, normal, laterNormal, low), queue.added);
+    }
+
+    @Test
+    public void reservedSlots_areOnlyTakenByHighPriority() {
+        scheduler.setReservedForHigh(1);
+        TestRequest normal = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest low = request("a.example.com", Request.Priority.LOW);
+        TestRequest high = request("a.example.com", Request.Priority.HIGH);
+
+        scheduler.add(normal);
+        scheduler.add(low);
+        scheduler.add(high);
+
+        assertEquals(Arrays.<Request<?>>asList(normal, high), queue.added);
+        assertEquals(1, scheduler.getWaitingCount("a.example.com"));
+    }
+
+    @Test
+    public void raisingLimit_releasesEveryRequestThatFits() {
+        scheduler.setMaxPerHost(1);
+        TestRequest first = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest second = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest third = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest fourth = request("a.example.com", Request.Priority.NORMAL);
+        scheduler.add(first);
+        scheduler.add(second);
+        scheduler.add(third);
+        scheduler.add(fourth);
+
+        scheduler.setMaxPerHost(3);
+
+        assertEquals(Arrays.<Request<?>>asList(first, second, third), queue.added);
+        assertEquals(1, scheduler.getWaitingCount("a.example.com"));
+    }
+
+    @Test
+    public void normalRequests_waitWhileOnlyReservedSlotsAreFree() {
+        scheduler.setMaxPerHost(3);
+        scheduler.setReservedForHigh(1);
+        TestRequest n1 = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest n2 = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest h1 = request("a.example.com", Request.Priority.HIGH);
+        TestRequest h2 = request("a.example.com", Request.Priority.HIGH);
+        TestRequest n3 = request("a.example.com", Request.Priority.NORMAL);
+        scheduler.add(n1);
+        scheduler.add(n2);
+        scheduler.add(h1);
+        scheduler.add(h2);
+        scheduler.add(n3);
+
+        queue.finish(n1);
+        queue.finish(h1);
+
+        assertEquals(Arrays.<Request<?>>asList(n1, n2, h1, h2), queue.added);
+
+        queue.finish(n2);
+
+        assertEquals(Arrays.<Request<?>>asList(n1, n2, h1, h2, n3), queue.added);
+    }
+
+    @Test
+    public void cancelledWaitingRequests_areSkipped() {
+        scheduler.setMaxPerHost(1);
+        TestRequest first = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest cancelled = request("a.example.com", Request.Priority.HIGH);
+        TestRequest next = request("a.example.com", Request.Priority.NORMAL);
+        scheduler.add(first);
+        scheduler.add(cancelled);
+        scheduler.add(next);
+        cancelled.cancel();
+
+        queue.finish(first);
+
+        assertEquals(Arrays.<Request<?>>asList(first, next), queue.added);
+        assertEquals(0, scheduler.getWaitingCount("a.example.com"));
+    }
+
+    @Test
+    public void release_removesListenerAndCancelsWaitingRequests() {
+        scheduler.setMaxPerHost(1);
+        TestRequest sent = request("a.example.com", Request.Priority.NORMAL);
+        TestRequest waiting = request("a.example.com", Request.Priority.NORMAL);
+        scheduler.add(sent);
+        scheduler.add(waiting);
+        assertEquals(1, queue.listeners.size());
+
+        scheduler.release();
+        queue.finish(sent);
+
+        assertTrue(queue.listeners.isEmpty());
+        assertFalse(sent.isCanceled());
+        assertTrue(waiting.isCanceled());
+        assertEquals(Arrays.<Request<?>>asList(sent), queue.added);
+        assertEquals(0, scheduler.getWaitingCount("a.example.com"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releasedScheduler_rejectsRequests() {
+        scheduler.release();
+        scheduler.add(request("a.example.com", Request.Priority.NORMAL));
+    }
+}
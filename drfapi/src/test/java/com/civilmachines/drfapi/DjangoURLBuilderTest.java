@@ -0,0 +1,66 @@
+package com.civilmachines.drfapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DjangoURLBuilderTest {
+
+    private static final String BASE = "https://example.com/api/";
+
+    @Test
+    public void parametersAndFields_areSorted() {
+        String url = new DjangoURLBuilder(BASE)
+                .path("orders")
+                .filter("status", "paid")
+                .fields("total", "id", "customer", "id")
+                .page(2)
+                .build();
+
+        assertEquals(BASE + "orders/?fields=customer,id,total&page=2&status=paid", url);
+    }
+
+    @Test
+    public void repeatedFilterValues_areSortedAndDeduplicated() {
+        String first = new DjangoURLBuilder(BASE)
+                .filter("tag", "red")
+                .filter("tag", "blue")
+                .filter("tag", "red")
+                .build();
+        String second = new DjangoURLBuilder(BASE)
+                .filter("tag", "blue")
+                .filter("tag", "red")
+                .build();
+
+        assertEquals(BASE + "?tag=blue&tag=red", first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void existingQuery_isCanonicalized() {
+        String url = new DjangoURLBuilder(BASE + "?tag=red&fields=name,id&tag=blue&tag=red").build();
+
+        assertEquals(BASE + "?fields=id,name&tag=blue&tag=red", url);
+    }
+
+    @Test
+    public void ordering_keepsItsOrder() {
+        String url = new DjangoURLBuilder(BASE).ordering("-created", "name", "-created").build();
+
+        assertEquals(BASE + "?ordering=-created,name", url);
+    }
+
+    @Test
+    public void values_arePercentEncoded() {
+        String url = new DjangoURLBuilder(BASE).search(" a&b ").filter("done", true).build();
+
+        assertEquals(BASE + "?done=true&search=a%26b", url);
+    }
+
+    @Test
+    public void setParameter_replacesEarlierValue() {
+        String url = new DjangoURLBuilder(BASE + "?page=1").page(3).build();
+
+        assertEquals(BASE + "?page=3", url);
+    }
+}
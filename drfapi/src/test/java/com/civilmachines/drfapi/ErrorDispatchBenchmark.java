@@ -0,0 +1,121 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.ClientError;
+import com.android.volley.NetworkError;
+import com.android.volley.NoConnectionError;
+import com.android.volley.ParseError;
+import com.android.volley.ServerError;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.json.JSONObject;
+
+import static com.civilmachines.drfapi.ParseNetworkResponseBenchmark.BenchmarkPayloads.response;
+
+/**
+ * Measures {@link DjangoErrorListener#onErrorResponse(com.android.volley.VolleyError)} dispatch
+ * for every error class the listener distinguishes.
+ *
+ * Run with: {@code ./gradlew :drfapi:benchmark -Pjmh=ErrorDispatchBenchmark}
+ */
+@State(Scope.Benchmark)
+public class ErrorDispatchBenchmark {
+
+    @Param({"bad_request_detail", "bad_request_fields", "not_found", "html_not_found", "unprocessable",
+            "non_json", "server", "auth_failure", "timeout", "no_connection", "parse", "network"})
+    public String error;
+
+    private VolleyError volleyError;
+    private BlackholeErrorListener listener;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        listener = new BlackholeErrorListener(blackhole);
+        switch (error) {
+            case "bad_request_detail":
+                volleyError = new ClientError(response(400, "{\"detail\": \"Invalid input.\"}"));
+                break;
+            case "bad_request_fields":
+                volleyError = new ClientError(response(400,
+                        "{\"email\": [\"Enter a valid email address.\"], \"username\": [\"This field is required.\"]}"));
+                break;
+            case "not_found":
+                volleyError = new ClientError(response(404, "{\"detail\": \"Not found.\"}"));
+                break;
+            case "html_not_found":
+                volleyError = new ClientError(response(404, "<html><body>Not Found</body></html>", "text/html"));
+                break;
+            case "unprocessable":
+                volleyError = new ClientError(response(422, "{\"data\": \"OTP expired.\"}"));
+                break;
+            case "non_json":
+                volleyError = new ClientError(response(400, "Bad Request"));
+                break;
+            case "server":
+                volleyError = new ServerError(response(500, "<h1>Server Error (500)</h1>", "text/html"));
+                break;
+            case "auth_failure":
+                volleyError = new AuthFailureError(response(401,
+                        "{\"detail\": \"Authentication credentials were not provided.\"}"));
+                break;
+            case "timeout":
+                volleyError = new TimeoutError();
+                break;
+            case "no_connection":
+                volleyError = new NoConnectionError();
+                break;
+            case "parse":
+                volleyError = new ParseError(response(200, ""));
+                break;
+            case "network":
+                volleyError = new NetworkError(response(0, ""));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown error: " + error);
+        }
+    }
+
+    @Benchmark
+    public void onErrorResponse() {
+        listener.onErrorResponse(volleyError);
+    }
+
+    /**
+     * Sinks every callback argument into the {@link Blackhole} so dispatch is not optimised away.
+     */
+    static class BlackholeErrorListener extends DefaultAPIErrorListener {
+
+        private final Blackhole blackhole;
+
+        BlackholeErrorListener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override public void onNetworkError(String response) { blackhole.consume(response); }
+        @Override public void onAuthFailureError(String response) { blackhole.consume(response); }
+        @Override public void onTimeoutError(String response) { blackhole.consume(response); }
+        @Override public void onNoConnectionError(String response) { blackhole.consume(response); }
+        @Override public void onParseError(String response) { blackhole.consume(response); }
+        @Override public void onMethodNotAllowedError(String message) { blackhole.consume(message); }
+        @Override public void onNotFoundError(String message) { blackhole.consume(message); }
+        @Override public void onBadRequestError(String message) { blackhole.consume(message); }
+        @Override public void onBadRequestError(JSONObject response) { blackhole.consume(response); }
+        @Override public void onForbiddenError(String message) { blackhole.consume(message); }
+        @Override public void onUnprocessableEntityError(String message) { blackhole.consume(message); }
+        @Override public void onUnprocessableEntityError(JSONObject response) { blackhole.consume(response); }
+        @Override public void onUnsupportedMediaTypeError(String message) { blackhole.consume(message); }
+        @Override public void onNonJsonError(String response) { blackhole.consume(response); }
+        @Override public void onDefaultJsonError(JSONObject response) { blackhole.consume(response); }
+        @Override public void onDefaultHTMLError(String response) { blackhole.consume(response); }
+        @Override public void onServerError(String response) { blackhole.consume(response); }
+        @Override public void onDefaultError(String response) { blackhole.consume(response); }
+    }
+}
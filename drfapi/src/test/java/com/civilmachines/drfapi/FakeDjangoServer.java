@@ -0,0 +1,240 @@
+package com.civilmachines.drfapi;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * An in-process stand-in for a Django REST Framework backend, built on {@link MockWebServer}.
+ *
+ * Serves the following endpoints:
+ * <pre>
+ *     POST /api/token/             issues an HS256 access token for {@link #USERNAME}, as simplejwt
+ *     GET  /api/items/?page=N      paginated list (requires JWT), PageNumberPagination format
+ *     GET  /api/items/all/         unpaginated list (requires JWT)
+ *     GET  /api/throttled/         429 with DRF throttle detail
+ *     GET  /api/broken/            500 with Django's HTML error page
+ *     GET  /api/missing/           404 with Django's HTML error page
+ *     GET  /api/slow/              responds after {@link #SLOW_RESPONSE_MS}
+ * </pre>
+ *
+ * Tokens are signed and carry an expiry. A missing, expired or tampered token gets the 401
+ * simplejwt returns, which Volley's BasicNetwork raises as an AuthFailureError.
+ */
+public class FakeDjangoServer {
+
+    public static final String USERNAME = "admin";
+    public static final String PASSWORD = "password";
+    public static final long TOKEN_LIFETIME_SECONDS = 300;
+    public static final int PAGE_SIZE = 20;
+    public static final int ITEM_COUNT = 95;
+    public static final long SLOW_RESPONSE_MS = 1000;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] SECRET = "django-insecure-test-secret-key".getBytes(UTF_8);
+
+    private final MockWebServer server = new MockWebServer();
+
+    public FakeDjangoServer() {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return respond(request);
+            }
+        });
+    }
+
+    public void start() throws IOException {
+        server.start();
+    }
+
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    public String url(String path) {
+        return server.url(path).toString();
+    }
+
+    public int getRequestCount() {
+        return server.getRequestCount();
+    }
+
+    /**
+     * Signs an access token the way simplejwt does, with HS256.
+     *
+     * @param userId value of the user_id claim
+     * @param lifetimeSeconds seconds until the token expires, negative for an expired token
+     */
+    public static String issueToken(int userId, long lifetimeSeconds) {
+        try {
+            String header = encode(new JSONObject().put("alg", "HS256").put("typ", "JWT").toString());
+            String payload = encode(new JSONObject()
+                    .put("token_type", "access")
+                    .put("user_id", userId)
+                    .put("exp", System.currentTimeMillis() / 1000 + lifetimeSeconds)
+                    .toString());
+            return header + "." + payload + "." + sign(header + "." + payload);
+        } catch (JSONException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        HttpUrl url = request.getRequestUrl();
+        String path = url.encodedPath();
+
+        try {
+            switch (path) {
+                case "/api/token/": {
+                    JSONObject body = new JSONObject(request.getBody().readUtf8());
+                    if (!USERNAME.equals(body.optString("username"))
+                            || !PASSWORD.equals(body.optString("password")))
+                        return json(401, new JSONObject()
+                                .put("detail", "No active account found with the given credentials")
+                                .toString());
+                    return json(200, new JSONObject()
+                            .put("access", issueToken(1, TOKEN_LIFETIME_SECONDS))
+                            .toString());
+                }
+                case "/api/items/": {
+                    MockResponse unauthorized = authenticate(request);
+                    if (unauthorized != null)
+                        return unauthorized;
+                    String page = url.queryParameter("page");
+                    return page(page == null ? 1 : Integer.parseInt(page));
+                }
+                case "/api/items/all/": {
+                    MockResponse unauthorized = authenticate(request);
+                    if (unauthorized != null)
+                        return unauthorized;
+                    return json(200, items(0, ITEM_COUNT).toString());
+                }
+                case "/api/throttled/": {
+                    return json(429, new JSONObject()
+                            .put("detail", "Request was throttled. Expected available in 1 second.")
+                            .toString())
+                            .setHeader("Retry-After", "1");
+                }
+                case "/api/broken/": {
+                    return html(500, "<h1>Server Error (500)</h1>");
+                }
+                case "/api/missing/": {
+                    return html(404, "<h1>Not Found</h1><p>The requested resource was not found on this server.</p>");
+                }
+                case "/api/slow/": {
+                    return json(200, new JSONObject().put("detail", "slow").toString())
+                            .setHeadersDelay(SLOW_RESPONSE_MS, TimeUnit.MILLISECONDS);
+                }
+                default: {
+                    return json(404, new JSONObject().put("detail", "Not found.").toString());
+                }
+            }
+        } catch (JSONException ex) {
+            return html(500, "<h1>Server Error (500)</h1>");
+        }
+    }
+
+    /**
+     * @return the 401 simplejwt would send, or null if request carries a valid token
+     */
+    private MockResponse authenticate(RecordedRequest request) throws JSONException {
+        String authorization = request.getHeader("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer "))
+            return unauthorized(new JSONObject()
+                    .put("detail", "Authentication credentials were not provided."));
+        if (!isValid(authorization.substring("Bearer ".length())))
+            return unauthorized(new JSONObject()
+                    .put("detail", "Given token not valid for any token type")
+                    .put("code", "token_not_valid"));
+        return null;
+    }
+
+    private static boolean isValid(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3)
+            return false;
+        byte[] expected = sign(parts[0] + "." + parts[1]).getBytes(UTF_8);
+        if (!MessageDigest.isEqual(expected, parts[2].getBytes(UTF_8)))
+            return false;
+        try {
+            JSONObject payload = new JSONObject(new String(Base64.getUrlDecoder().decode(parts[1]), UTF_8));
+            return payload.getLong("exp") > System.currentTimeMillis() / 1000;
+        } catch (JSONException | IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(UTF_8));
+    }
+
+    private static String sign(String content) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET, "HmacSHA256"));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(content.getBytes(UTF_8)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static MockResponse unauthorized(JSONObject body) {
+        return json(401, body.toString())
+                .setHeader("WWW-Authenticate", "Bearer realm=\"api\"");
+    }
+
+    private MockResponse page(int page) throws JSONException {
+        int pages = (ITEM_COUNT + PAGE_SIZE - 1) / PAGE_SIZE;
+        if (page < 1 || page > pages)
+            return json(404, new JSONObject().put("detail", "Invalid page.").toString());
+
+        JSONObject body = new JSONObject();
+        body.put("count", ITEM_COUNT);
+        body.put("next", page < pages ? url("/api/items/?page=" + (page + 1)) : JSONObject.NULL);
+        body.put("previous", page > 1 ? url("/api/items/?page=" + (page - 1)) : JSONObject.NULL);
+        body.put("results", items((page - 1) * PAGE_SIZE, Math.min(page * PAGE_SIZE, ITEM_COUNT)));
+        return json(200, body.toString());
+    }
+
+    private JSONArray items(int from, int to) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (int i = from; i < to; i++) {
+            array.put(new JSONObject()
+                    .put("id", i + 1)
+                    .put("name", "Item " + (i + 1))
+                    .put("modified", "2018-12-01T10:15:30Z"));
+        }
+        return array;
+    }
+
+    private static MockResponse json(int code, String body) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body);
+    }
+
+    private static MockResponse html(int code, String body) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "text/html; charset=utf-8")
+                .setBody(body);
+    }
+}
@@ -0,0 +1,41 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.Request;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+
+/**
+ * Measures header construction in {@link DjangoBaseRequest#getHeaders()}, which runs once for
+ * every request sent, with and without a saved token.
+ *
+ * Run with: {@code ./gradlew :drfapi:benchmark -Pjmh=GetHeadersBenchmark}
+ */
+@State(Scope.Benchmark)
+public class GetHeadersBenchmark {
+
+    @Param({"true", "false"})
+    public boolean loggedIn;
+
+    private DjangoJSONObjectRequest request;
+
+    @Setup
+    public void setUp() {
+        TestContext context = new TestContext();
+        if (loggedIn) {
+            new UserSharedPreferenceAdapter(context).saveToken("eyJhbGciOiJIUzI1NiJ9.eyJ1c2VyX2lkIjoxfQ.sig");
+        }
+        request = new DjangoJSONObjectRequest(Request.Method.GET, "http://localhost/api/users/",
+                null, null, null, context);
+    }
+
+    @Benchmark
+    public Map<String, String> getHeaders() {
+        return request.getHeaders();
+    }
+}
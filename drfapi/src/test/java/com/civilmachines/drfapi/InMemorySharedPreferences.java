@@ -0,0 +1,179 @@
+package com.civilmachines.drfapi;
+
+import android.content.SharedPreferences;
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link SharedPreferences} kept entirely in memory, used by local unit tests and
+ * benchmarks where the stubbed android.jar can not provide a real implementation.
+ */
+public class InMemorySharedPreferences implements SharedPreferences {
+
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<OnSharedPreferenceChangeListener> listeners =
+            new CopyOnWriteArrayList<>();
+
+    // Number of apply() calls, to tell them from commits
+    final AtomicInteger applies = new AtomicInteger();
+
+    // When true, commits fail like a full disk would, without changing anything
+    volatile boolean failWrites = false;
+
+    @Override
+    public Map<String, ?> getAll() {
+        return new HashMap<>(values);
+    }
+
+    @Nullable
+    @Override
+    public String getString(String key, @Nullable String defValue) {
+        Object value = values.get(key);
+        return value == null ? defValue : (String) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public Set<String> getStringSet(String key, @Nullable Set<String> defValues) {
+        Object value = values.get(key);
+        return value == null ? defValues : (Set<String>) value;
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        Object value = values.get(key);
+        return value == null ? defValue : (Integer) value;
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        Object value = values.get(key);
+        return value == null ? defValue : (Long) value;
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        Object value = values.get(key);
+        return value == null ? defValue : (Float) value;
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        Object value = values.get(key);
+        return value == null ? defValue : (Boolean) value;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+        return new InMemoryEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    private class InMemoryEditor implements Editor {
+
+        private final Map<String, Object> pending = new HashMap<>();
+        private final Set<String> removed = new HashSet<>();
+        private boolean clear;
+
+        private Editor put(String key, Object value) {
+            if (value == null) {
+                return remove(key);
+            }
+            pending.put(key, value);
+            removed.remove(key);
+            return this;
+        }
+
+        @Override
+        public Editor putString(String key, @Nullable String value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putStringSet(String key, @Nullable Set<String> values) {
+            return put(key, values == null ? null : new HashSet<>(values));
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor remove(String key) {
+            pending.remove(key);
+            removed.add(key);
+            return this;
+        }
+
+        @Override
+        public Editor clear() {
+            clear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            if (failWrites)
+                return false;
+            synchronized (values) {
+                if (clear) {
+                    values.clear();
+                }
+                for (String key : removed) {
+                    values.remove(key);
+                }
+                values.putAll(pending);
+            }
+            for (OnSharedPreferenceChangeListener listener : listeners) {
+                for (String key : pending.keySet()) {
+                    listener.onSharedPreferenceChanged(InMemorySharedPreferences.this, key);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void apply() {
+            applies.incrementAndGet();
+            commit();
+        }
+    }
+}
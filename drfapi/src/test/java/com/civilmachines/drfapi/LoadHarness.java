@@ -0,0 +1,298 @@
+package com.civilmachines.drfapi;
+
+import android.content.Context;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.ExecutorDelivery;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.HurlStack;
+import com.android.volley.toolbox.NoCache;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives many concurrent {@link DjangoJSONObjectRequest} and {@link DjangoJSONArrayResponseRequest}
+ * calls against a {@link FakeDjangoServer} through a real {@link RequestQueue}, and reports
+ * throughput, latency percentiles and callbacks that did not match the expected one.
+ */
+public class LoadHarness {
+
+    /**
+     * A request shape sent to the server and the callback it is expected to end in.
+     */
+    public enum Scenario {
+        PAGE("onResponse"),
+        LIST("onResponse"),
+        UNAUTHORIZED("onForbiddenError"),
+        EXPIRED_TOKEN("onForbiddenError"),
+        THROTTLED("onDefaultJsonError"),
+        SERVER_ERROR("onServerError"),
+        HTML_NOT_FOUND("onNotFoundError"),
+        SLOW("onTimeoutError");
+
+        final String expected;
+
+        Scenario(String expected) {
+            this.expected = expected;
+        }
+    }
+
+    private final FakeDjangoServer server;
+    private final Context loggedIn;
+    private final Context anonymous;
+    private final Context expired;
+
+    public LoadHarness(FakeDjangoServer server) {
+        this.server = server;
+        this.loggedIn = new TestContext();
+        this.anonymous = new TestContext();
+        this.expired = new TestContext();
+        new UserSharedPreferenceAdapter(expired).saveToken(FakeDjangoServer.issueToken(1, -60));
+    }
+
+    /**
+     * Sends {@code total} requests, cycling through {@code scenarios}, on a queue with
+     * {@code threads} network dispatchers and waits for every one to call back.
+     */
+    public Report run(int total, int threads, List<Scenario> scenarios, long timeoutMs)
+            throws InterruptedException {
+        ExecutorService delivery = Executors.newSingleThreadExecutor();
+        RequestQueue queue = new RequestQueue(new NoCache(), new BasicNetwork(new HurlStack()),
+                threads, new ExecutorDelivery(delivery));
+        queue.start();
+        logIn(queue);
+
+        Report report = new Report(total);
+        CountDownLatch done = new CountDownLatch(total);
+        long started = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            Scenario scenario = scenarios.get(i % scenarios.size());
+            queue.add(create(scenario, i, report, done));
+        }
+        boolean finished = done.await(timeoutMs, TimeUnit.MILLISECONDS);
+        report.elapsedNanos = System.nanoTime() - started;
+        report.unfinished = finished ? 0 : (int) done.getCount();
+
+        queue.stop();
+        delivery.shutdown();
+        return report;
+    }
+
+    public Report run(int total, int threads, long timeoutMs) throws InterruptedException {
+        return run(total, threads, Arrays.asList(Scenario.values()), timeoutMs);
+    }
+
+    /**
+     * Obtains a token from the server, as an app would, and stores it for logged in requests.
+     */
+    private void logIn(RequestQueue queue) throws InterruptedException {
+        UserSharedPreferenceAdapter preferences = new UserSharedPreferenceAdapter(loggedIn);
+        if (preferences.isLoggedIn())
+            return;
+        try {
+            JSONObject credentials = new JSONObject()
+                    .put("username", FakeDjangoServer.USERNAME)
+                    .put("password", FakeDjangoServer.PASSWORD);
+            DjangoRequestFuture<JSONObject> future = DjangoRequestFuture.newFuture();
+            DjangoJSONObjectRequest request = new DjangoJSONObjectRequest(server.url("/api/token/"),
+                    credentials, future, future, anonymous);
+            future.setRequest(request);
+            queue.add(request);
+            preferences.saveToken(future.get(10, TimeUnit.SECONDS).getString("access"));
+        } catch (JSONException | ExecutionException | TimeoutException ex) {
+            throw new IllegalStateException("Couldn't log in to " + server.url("/api/token/"), ex);
+        }
+    }
+
+    private Request<?> create(final Scenario scenario, int index, final Report report,
+                              final CountDownLatch done) {
+        final long sent = System.nanoTime();
+        final RecordingErrorListener errorListener = new RecordingErrorListener() {
+            @Override
+            void record(String callback) {
+                report.record(scenario, callback, System.nanoTime() - sent);
+                done.countDown();
+            }
+        };
+
+        Request<?> request;
+        switch (scenario) {
+            case PAGE: {
+                int page = index % ((FakeDjangoServer.ITEM_COUNT + FakeDjangoServer.PAGE_SIZE - 1)
+                        / FakeDjangoServer.PAGE_SIZE) + 1;
+                request = new DjangoJSONObjectRequest(server.url("/api/items/?page=" + page), null,
+                        new Response.Listener<JSONObject>() {
+                            @Override
+                            public void onResponse(JSONObject response) {
+                                errorListener.record("onResponse");
+                            }
+                        }, errorListener, loggedIn);
+                break;
+            }
+            case LIST: {
+                request = new DjangoJSONArrayResponseRequest(server.url("/api/items/all/"), null,
+                        new Response.Listener<JSONArray>() {
+                            @Override
+                            public void onResponse(JSONArray response) {
+                                errorListener.record("onResponse");
+                            }
+                        }, errorListener, loggedIn);
+                break;
+            }
+            default: {
+                String path;
+                switch (scenario) {
+                    case UNAUTHORIZED:
+                    case EXPIRED_TOKEN:
+                        path = "/api/items/";
+                        break;
+                    case THROTTLED:
+                        path = "/api/throttled/";
+                        break;
+                    case SERVER_ERROR:
+                        path = "/api/broken/";
+                        break;
+                    case HTML_NOT_FOUND:
+                        path = "/api/missing/";
+                        break;
+                    default:
+                        path = "/api/slow/";
+                        break;
+                }
+                request = new DjangoJSONObjectRequest(server.url(path), null,
+                        new Response.Listener<JSONObject>() {
+                            @Override
+                            public void onResponse(JSONObject response) {
+                                errorListener.record("onResponse");
+                            }
+                        }, errorListener, scenario == Scenario.UNAUTHORIZED ? anonymous
+                        : scenario == Scenario.EXPIRED_TOKEN ? expired : loggedIn);
+                break;
+            }
+        }
+
+        int timeoutMs = scenario == Scenario.SLOW
+                ? (int) FakeDjangoServer.SLOW_RESPONSE_MS / 4
+                : (int) FakeDjangoServer.SLOW_RESPONSE_MS * 5;
+        request.setRetryPolicy(new DefaultRetryPolicy(timeoutMs, 0, 1f));
+        request.setShouldCache(false);
+        return request;
+    }
+
+    /**
+     * Aggregated outcome of a harness run.
+     */
+    public static class Report {
+
+        private final List<Long> latencies;
+        private final Map<String, AtomicInteger> misrouted = new TreeMap<>();
+        private final AtomicInteger completed = new AtomicInteger();
+        long elapsedNanos;
+        int unfinished;
+
+        Report(int total) {
+            latencies = Collections.synchronizedList(new ArrayList<Long>(total));
+        }
+
+        void record(Scenario scenario, String callback, long latencyNanos) {
+            completed.incrementAndGet();
+            latencies.add(latencyNanos);
+            if (!scenario.expected.equals(callback)) {
+                String key = scenario + " -> " + callback;
+                synchronized (misrouted) {
+                    if (!misrouted.containsKey(key))
+                        misrouted.put(key, new AtomicInteger());
+                    misrouted.get(key).incrementAndGet();
+                }
+            }
+        }
+
+        public int getCompleted() {
+            return completed.get();
+        }
+
+        public int getUnfinished() {
+            return unfinished;
+        }
+
+        public Map<String, AtomicInteger> getMisrouted() {
+            synchronized (misrouted) {
+                return new TreeMap<>(misrouted);
+            }
+        }
+
+        public double getThroughput() {
+            return completed.get() / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return latency in milliseconds at the given percentile
+         */
+        public double getLatencyMs(double percentile) {
+            List<Long> sorted;
+            synchronized (latencies) {
+                sorted = new ArrayList<>(latencies);
+            }
+            if (sorted.isEmpty())
+                return 0;
+            Collections.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+            return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1))) / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("completed=%d unfinished=%d throughput=%.1f req/s "
+                            + "p50=%.1fms p90=%.1fms p99=%.1fms misrouted=%s",
+                    getCompleted(), unfinished, getThroughput(),
+                    getLatencyMs(50), getLatencyMs(90), getLatencyMs(99), getMisrouted());
+        }
+    }
+
+    /**
+     * Records the name of whichever {@link DjangoErrorListener} callback was invoked.
+     */
+    abstract static class RecordingErrorListener extends DjangoErrorListener {
+
+        abstract void record(String callback);
+
+        @Override public void onNetworkError(String response) { record("onNetworkError"); }
+        @Override public void onAuthFailureError(String response) { record("onAuthFailureError"); }
+        @Override public void onTimeoutError(String response) { record("onTimeoutError"); }
+        @Override public void onNoConnectionError(String response) { record("onNoConnectionError"); }
+        @Override public void onParseError(String response) { record("onParseError"); }
+        @Override public void onMethodNotAllowedError(String message) { record("onMethodNotAllowedError"); }
+        @Override public void onNotFoundError(String message) { record("onNotFoundError"); }
+        @Override public void onBadRequestError(String message) { record("onBadRequestError"); }
+        @Override public void onBadRequestError(JSONObject response) { record("onBadRequestError"); }
+        @Override public void onForbiddenError(String message) { record("onForbiddenError"); }
+        @Override public void onUnprocessableEntityError(String message) { record("onUnprocessableEntityError"); }
+        @Override public void onUnprocessableEntityError(JSONObject response) { record("onUnprocessableEntityError"); }
+        @Override public void onUnsupportedMediaTypeError(String message) { record("onUnsupportedMediaTypeError"); }
+        @Override public void onNonJsonError(String response) { record("onNonJsonError"); }
+        @Override public void onDefaultJsonError(JSONObject response) { record("onDefaultJsonError"); }
+        @Override public void onDefaultHTMLError(String response) { record("onDefaultHTMLError"); }
+        @Override public void onServerError(String response) { record("onServerError"); }
+        @Override public void onDefaultError(String response) { record("onDefaultError"); }
+    }
+}
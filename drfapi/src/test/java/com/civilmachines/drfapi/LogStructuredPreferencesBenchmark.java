@@ -0,0 +1,57 @@
+package com.civilmachines.drfapi;
+
+import android.content.SharedPreferences;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Measures a commit of one changed key to {@link LogStructuredPreferences}, including its
+ * share of the full rewrites done by compaction. Compaction only runs once stale records
+ * outnumber live keys, so the rewrite of n keys is paid for by at least n appends and the
+ * time per commit should barely grow with the number of keys.
+ *
+ * Run with: {@code ./gradlew :drfapi:benchmark -Pjmh=LogStructuredPreferencesBenchmark}
+ */
+@State(Scope.Benchmark)
+public class LogStructuredPreferencesBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int keys;
+
+    private File file;
+    private LogStructuredPreferences store;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("benchmark", ".kvlog");
+        store = new LogStructuredPreferences(file);
+        SharedPreferences.Editor editor = store.edit();
+        for (int i = 0; i < keys; i++) {
+            editor.putString("key" + i, "value of key " + i);
+        }
+        editor.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (!file.delete())
+            file.deleteOnExit();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    @Benchmark
+    public boolean commitOneKey() {
+        int key = next++ % keys;
+        return store.edit().putString("key" + key, "updated " + next).commit();
+    }
+}
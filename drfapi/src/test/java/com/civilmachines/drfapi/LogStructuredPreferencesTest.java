@@ -0,0 +1,154 @@
+package com.civilmachines.drfapi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Reads every log back with a new {@link LogStructuredPreferences}, as a new process would.
+ */
+public class LogStructuredPreferencesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replay_restoresEveryTypeAndRemoval() throws IOException {
+        File file = folder.newFile("prefs.kvlog");
+        LogStructuredPreferences store = new LogStructuredPreferences(file);
+        assertTrue(store.edit()
+                .putString("token", "abc")
+                .putInt("int", 42)
+                .putLong("long", 1L << 40)
+                .putFloat("float", 1.5f)
+                .putBoolean("bool", true)
+                .putStringSet("set", new HashSet<>(Arrays.asList("a", "b")))
+                .putString("removed", "x")
+                .commit());
+        assertTrue(store.edit().remove("removed").putString("token", "def").commit());
+
+        LogStructuredPreferences reopened = new LogStructuredPreferences(file);
+        assertEquals("def", reopened.getString("token", null));
+        assertEquals(42, reopened.getInt("int", 0));
+        assertEquals(1L << 40, reopened.getLong("long", 0));
+        assertEquals(1.5f, reopened.getFloat("float", 0), 0);
+        assertTrue(reopened.getBoolean("bool", false));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), reopened.getStringSet("set", null));
+        assertFalse(reopened.contains("removed"));
+    }
+
+    @Test
+    public void replay_appliesClearInOrder() throws IOException {
+        File file = folder.newFile("prefs.kvlog");
+        LogStructuredPreferences store = new LogStructuredPreferences(file);
+        assertTrue(store.edit().putString("old", "1").commit());
+        assertTrue(store.edit().clear().putString("new", "2").commit());
+
+        LogStructuredPreferences reopened = new LogStructuredPreferences(file);
+        assertFalse(reopened.contains("old"));
+        assertEquals("2", reopened.getString("new", null));
+    }
+
+    @Test
+    public void tornLastRecord_isDiscarded() throws IOException {
+        File file = folder.newFile("prefs.kvlog");
+        LogStructuredPreferences store = new LogStructuredPreferences(file);
+        assertTrue(store.edit().putString("kept", "1").commit());
+        long intact = file.length();
+        assertTrue(store.edit().putString("torn", "2").commit());
+
+        // Cut the last record in half, as a crash during the write would
+        truncate(file, intact + (file.length() - intact) / 2);
+
+        LogStructuredPreferences reopened = new LogStructuredPreferences(file);
+        assertEquals("1", reopened.getString("kept", null));
+        assertNull(reopened.getString("torn", null));
+
+        // New records go after the last intact one, not after the torn bytes
+        assertTrue(reopened.edit().putString("after", "3").commit());
+        LogStructuredPreferences again = new LogStructuredPreferences(file);
+        assertEquals("1", again.getString("kept", null));
+        assertEquals("3", again.getString("after", null));
+        assertNull(again.getString("torn", null));
+    }
+
+    @Test
+    public void corruptLastRecord_isDiscarded() throws IOException {
+        File file = folder.newFile("prefs.kvlog");
+        LogStructuredPreferences store = new LogStructuredPreferences(file);
+        assertTrue(store.edit().putString("kept", "1").commit());
+        assertTrue(store.edit().putString("corrupt", "2").commit());
+
+        // Flip the last byte of the payload, so its checksum no longer matches
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(raf.length() - 1);
+            int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 0xff);
+        } finally {
+            raf.close();
+        }
+
+        LogStructuredPreferences reopened = new LogStructuredPreferences(file);
+        assertEquals("1", reopened.getString("kept", null));
+        assertNull(reopened.getString("corrupt", null));
+    }
+
+    @Test
+    public void compaction_shrinksLogAndKeepsLatestValues() throws IOException {
+        File file = folder.newFile("prefs.kvlog");
+        LogStructuredPreferences store = new LogStructuredPreferences(file);
+        assertTrue(store.edit().putString("constant", "c").commit());
+        assertTrue(store.edit().putInt("counter", 0).commit());
+        long perRecord = file.length();
+        assertTrue(store.edit().putInt("counter", 1).commit());
+        perRecord = file.length() - perRecord;
+
+        int updates = 1000;
+        for (int i = 2; i < updates; i++) {
+            assertTrue(store.edit().putInt("counter", i).commit());
+        }
+
+        assertTrue("log was not compacted: " + file.length() + " bytes",
+                file.length() < perRecord * updates / 2);
+
+        LogStructuredPreferences reopened = new LogStructuredPreferences(file);
+        assertEquals(updates - 1, reopened.getInt("counter", -1));
+        assertEquals("c", reopened.getString("constant", null));
+        assertEquals(2, reopened.getAll().size());
+    }
+
+    @Test
+    public void unrecognisedFile_loadsEmpty() throws IOException {
+        File file = folder.newFile("prefs.kvlog");
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.write("not a log file".getBytes("UTF-8"));
+        } finally {
+            raf.close();
+        }
+
+        assertTrue(new LogStructuredPreferences(file).getAll().isEmpty());
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(length);
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures {@code parseNetworkResponse} of {@link DjangoJSONObjectRequest} (paginated DRF
+ * response) and {@link DjangoJSONArrayResponseRequest} (plain list response) for different
+ * number of serialized objects in the body.
+ *
+ * Run with: {@code ./gradlew :drfapi:benchmark -Pjmh=ParseNetworkResponseBenchmark}
+ */
+@State(Scope.Benchmark)
+public class ParseNetworkResponseBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int items;
+
+    private DjangoJSONObjectRequest objectRequest;
+    private DjangoJSONArrayResponseRequest arrayRequest;
+    private DjangoJSONObjectRequest cachedObjectRequest;
+    private NetworkResponse objectResponse;
+    private NetworkResponse arrayResponse;
+
+    @Setup
+    public void setUp() throws JSONException {
+        TestContext context = new TestContext();
+        objectRequest = new DjangoJSONObjectRequest(Request.Method.GET, "http://localhost/api/users/",
+                null, null, null, context);
+        arrayRequest = new DjangoJSONArrayResponseRequest(Request.Method.GET, "http://localhost/api/users/",
+                null, null, null, context);
+
+        JSONArray results = BenchmarkPayloads.users(items);
+        JSONObject page = new JSONObject();
+        page.put("count", items);
+        page.put("next", JSONObject.NULL);
+        page.put("previous", JSONObject.NULL);
+        page.put("results", results);
+
+        objectResponse = BenchmarkPayloads.response(200, page.toString());
+        arrayResponse = BenchmarkPayloads.response(200, results.toString());
+
+        // Same body every time, as seen by a polling screen
+        cachedObjectRequest = new DjangoJSONObjectRequest(Request.Method.GET, "http://localhost/api/users/",
+                null, null, null, context);
+        cachedObjectRequest.setParsedResponseCache(
+                new DjangoParsedResponseCache(DjangoParsedResponseCache.DEFAULT_MAX_SIZE));
+        cachedObjectRequest.parseNetworkResponse(objectResponse);
+    }
+
+    @Benchmark
+    public Response<JSONObject> objectRequest() {
+        return objectRequest.parseNetworkResponse(objectResponse);
+    }
+
+    @Benchmark
+    public Response<JSONArray> arrayRequest() {
+        return arrayRequest.parseNetworkResponse(arrayResponse);
+    }
+
+    @Benchmark
+    public Response<JSONObject> cachedObjectRequest() {
+        return cachedObjectRequest.parseNetworkResponse(objectResponse);
+    }
+
+    /**
+     * Builds DRF like payloads used across benchmarks.
+     */
+    static class BenchmarkPayloads {
+
+        static JSONArray users(int count) throws JSONException {
+            JSONArray array = new JSONArray();
+            for (int i = 0; i < count; i++) {
+                JSONObject user = new JSONObject();
+                user.put("id", i);
+                user.put("username", "user" + i);
+                user.put("email", "user" + i + "@example.com");
+                user.put("is_active", i % 2 == 0);
+                user.put("date_joined", "2018-12-01T10:15:30.000000Z");
+                user.put("groups", new JSONArray().put("staff").put("group" + i % 7));
+                array.put(user);
+            }
+            return array;
+        }
+
+        static NetworkResponse response(int statusCode, String body) {
+            return response(statusCode, body, "application/json");
+        }
+
+        static NetworkResponse response(int statusCode, String body, String contentType) {
+            Map<String, String> headers = new HashMap<>();
+            headers.put("Content-Type", contentType);
+            headers.put("Date", "Sat, 01 Dec 2018 10:15:30 GMT");
+            return new NetworkResponse(statusCode, body.getBytes(Charset.forName("UTF-8")),
+                    headers, false, 0);
+        }
+    }
+}
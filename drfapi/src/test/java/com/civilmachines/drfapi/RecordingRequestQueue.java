@@ -0,0 +1,68 @@
+package com.civilmachines.drfapi;
+
+import com.android.volley.ExecutorDelivery;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.HurlStack;
+import com.android.volley.toolbox.NoCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link RequestQueue} that records requests instead of sending them, so tests can answer
+ * or finish them one by one on the test thread.
+ */
+public class RecordingRequestQueue extends RequestQueue {
+
+    final List<Request<?>> added = new ArrayList<>();
+    final List<RequestFinishedListener<Object>> listeners = new ArrayList<>();
+
+    public RecordingRequestQueue() {
+        super(new NoCache(), new BasicNetwork(new HurlStack()), 1, new ExecutorDelivery(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }));
+    }
+
+    @Override
+    public synchronized <T> Request<T> add(Request<T> request) {
+        added.add(request);
+        return request;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized <T> void addRequestFinishedListener(RequestFinishedListener<T> listener) {
+        listeners.add((RequestFinishedListener<Object>) listener);
+    }
+
+    @Override
+    public synchronized <T> void removeRequestFinishedListener(RequestFinishedListener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return the oldest recorded request, which is forgotten
+     */
+    synchronized Request<?> take() {
+        return added.remove(0);
+    }
+
+    /**
+     * Notifies finished listeners, as Volley does once a request is done or discarded.
+     */
+    @SuppressWarnings("unchecked")
+    void finish(Request<?> request) {
+        List<RequestFinishedListener<Object>> copy;
+        synchronized (this) {
+            copy = new ArrayList<>(listeners);
+        }
+        for (RequestFinishedListener<Object> listener : copy)
+            listener.onRequestFinished((Request<Object>) request);
+    }
+}
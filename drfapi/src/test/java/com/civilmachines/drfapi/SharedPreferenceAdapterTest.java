@@ -0,0 +1,246 @@
+package com.civilmachines.drfapi;
+
+import android.content.SharedPreferences;
+import android.util.JsonWriter;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SharedPreferenceAdapterTest {
+
+    private InMemorySharedPreferences store;
+    private SharedPreferenceAdapter adapter;
+
+    @Before
+    public void setUp() {
+        store = new InMemorySharedPreferences();
+        adapter = new SharedPreferenceAdapter(store);
+        // Listeners are called on the writer thread instead of the main thread
+        adapter.delivery = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+    }
+
+    /**
+     * Applies batch with a listener and waits for the result the listener receives
+     */
+    private Boolean applyAndWait(SharedPreferenceAdapter.Batch batch) throws InterruptedException {
+        final AtomicReference<Boolean> result = new AtomicReference<>();
+        final CountDownLatch saved = new CountDownLatch(1);
+        batch.apply(new SharedPreferenceAdapter.OnSaveListener() {
+            @Override
+            public void onSaved(boolean success) {
+                result.set(success);
+                saved.countDown();
+            }
+        });
+        assertTrue(saved.await(2, TimeUnit.SECONDS));
+        return result.get();
+    }
+
+    @Test
+    public void batch_writesEveryChangeInOneCommit() {
+        adapter.saveData("otp", "1234");
+
+        assertTrue(adapter.begin()
+                .saveData("name", "Ann")
+                .saveData("age", 30)
+                .saveData("tags", new HashSet<>(Arrays.asList("a", "b")))
+                .remove("otp")
+                .commit());
+
+        assertEquals("Ann", adapter.getString("name"));
+        assertEquals(30, adapter.getInt("age"));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), adapter.getStringSet("tags"));
+        assertNull(adapter.getString("otp"));
+        assertEquals(0, store.applies.get());
+    }
+
+    @Test
+    public void batchOfAsyncAdapter_isApplied() {
+        adapter.setAsync(true);
+
+        assertTrue(adapter.begin().saveData("name", "Ann").commit());
+
+        assertEquals("Ann", adapter.getString("name"));
+        assertEquals(1, store.applies.get());
+    }
+
+    @Test
+    public void batchApplyWithListener_reportsResultOfItsCommit() throws Exception {
+        assertTrue(applyAndWait(adapter.begin().saveData("name", "Ann")));
+        assertEquals("Ann", adapter.getString("name"));
+        assertEquals(0, store.applies.get());
+
+        store.failWrites = true;
+        assertFalse(applyAndWait(adapter.begin().saveData("name", "Bob")));
+        assertEquals("Ann", adapter.getString("name"));
+    }
+
+    @Test
+    public void batchesAppliedWithListener_areCommittedInOrder() throws Exception {
+        SharedPreferenceAdapter.OnSaveListener ignored = new SharedPreferenceAdapter.OnSaveListener() {
+            @Override
+            public void onSaved(boolean success) {
+            }
+        };
+        for (int i = 0; i < 20; i++)
+            adapter.begin().saveData("count", i).apply(ignored);
+
+        applyAndWait(adapter.begin().saveData("done", true));
+
+        assertEquals(19, adapter.getInt("count"));
+    }
+
+    @Test
+    public void asyncWrite_appliesAndAlwaysSucceeds() {
+        store.failWrites = true;
+        assertFalse(adapter.saveData("name", "Ann"));
+
+        adapter.setAsync(true);
+        assertTrue(adapter.saveData("name", "Ann"));
+        assertEquals(1, store.applies.get());
+
+        store.failWrites = false;
+        assertTrue(adapter.saveData("name", "Ann"));
+        assertTrue(adapter.remove("name"));
+        assertNull(adapter.getString("name"));
+        assertEquals(3, store.applies.get());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void deprecatedEditorField_holdsTheLatestEditor() {
+        assertNull(adapter.edit);
+
+        adapter.saveData("name", "Ann");
+        assertNotNull(adapter.edit);
+
+        SharedPreferences.Editor editor = adapter.getEditor();
+        assertSame(editor, adapter.edit);
+        editor.putInt("age", 30).commit();
+        assertEquals(30, adapter.getInt("age"));
+    }
+
+    /**
+     * Snapshots are streamed with android.util.JsonReader and JsonWriter, which the stubbed
+     * android.jar of Gradle unit tests doesn't implement
+     */
+    private static void assumeJsonStreaming() throws IOException {
+        Assume.assumeNotNull(new JsonWriter(new StringWriter()).beginObject());
+    }
+
+    private static byte[] export(SharedPreferenceAdapter adapter, String keyPrefix) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        adapter.exportSnapshot(out, keyPrefix);
+        return out.toByteArray();
+    }
+
+    private static void importSnapshot(SharedPreferenceAdapter adapter, String json) throws IOException {
+        adapter.importSnapshot(new ByteArrayInputStream(json.getBytes(Charset.forName("UTF-8"))), null, false);
+    }
+
+    private void assertRejected(String json) throws IOException {
+        try {
+            importSnapshot(adapter, json);
+            fail("Imported " + json);
+        } catch (IOException expected) {
+            assertEquals(Collections.singletonMap("kept", "yes"), store.getAll());
+        }
+    }
+
+    @Test
+    public void snapshot_restoresEveryType() throws Exception {
+        assumeJsonStreaming();
+        adapter.begin()
+                .saveData("string", "caf\u00e9 \"quoted\"\n")
+                .saveData("int", -42)
+                .saveData("long", Long.MAX_VALUE)
+                .saveData("float", 1.25f)
+                .saveData("boolean", true)
+                .saveData("set", new HashSet<>(Arrays.asList("a", "b", "")))
+                .saveData("empty", new HashSet<String>())
+                .commit();
+        SharedPreferenceAdapter copy = new SharedPreferenceAdapter(new InMemorySharedPreferences());
+
+        byte[] snapshot = export(adapter, null);
+        int restored = copy.importSnapshot(new ByteArrayInputStream(snapshot), null, false);
+
+        assertEquals(7, restored);
+        assertEquals(store.getAll(), copy.sharedPreference().getAll());
+        assertEquals(Long.MAX_VALUE, copy.getLong("long"));
+        assertEquals(1.25f, copy.getFloat("float"), 0);
+    }
+
+    @Test
+    public void snapshot_onlyCoversKeysWithPrefix() throws Exception {
+        assumeJsonStreaming();
+        adapter.begin().saveData("user.name", "Ann").saveData("user.age", 30).saveData("theme", "dark").commit();
+        SharedPreferenceAdapter copy = new SharedPreferenceAdapter(new InMemorySharedPreferences());
+        copy.begin().saveData("user.stale", "x").saveData("theme", "light").commit();
+
+        copy.importSnapshot(new ByteArrayInputStream(export(adapter, "user.")), "user.", true);
+
+        assertEquals("Ann", copy.getString("user.name"));
+        assertEquals(30, copy.getInt("user.age"));
+        assertNull(copy.getString("user.stale"));
+        assertEquals("light", copy.getString("theme"));
+    }
+
+    @Test
+    public void snapshot_mergesOrReplaces() throws Exception {
+        assumeJsonStreaming();
+        adapter.saveData("name", "Ann");
+        byte[] snapshot = export(adapter, null);
+        SharedPreferenceAdapter copy = new SharedPreferenceAdapter(new InMemorySharedPreferences());
+        copy.begin().saveData("name", "Bob").saveData("other", 1).commit();
+
+        copy.importSnapshot(new ByteArrayInputStream(snapshot), null, false);
+        assertEquals("Ann", copy.getString("name"));
+        assertEquals(1, copy.getInt("other"));
+
+        copy.importSnapshot(new ByteArrayInputStream(snapshot), null, true);
+        assertEquals(Collections.singletonMap("name", "Ann"), copy.sharedPreference().getAll());
+    }
+
+    @Test
+    public void malformedSnapshot_isRejectedWithoutChanges() throws Exception {
+        assumeJsonStreaming();
+        adapter.saveData("kept", "yes");
+
+        assertRejected("not json");
+        assertRejected("{\"version\": 1, \"entries\": [{\"k\": \"a\", \"t\": \"s\", \"v\": \"x\"}");
+        assertRejected("{\"version\": 2, \"entries\": []}");
+        assertRejected("{\"version\": 1, \"entries\": [{\"k\": \"a\", \"t\": \"s\"}]}");
+        assertRejected("{\"version\": 1, \"entries\": [{\"k\": \"a\", \"v\": 1, \"t\": \"i\"}]}");
+        assertRejected("{\"version\": 1, \"entries\": [{\"k\": \"a\", \"t\": \"x\", \"v\": 1}]}");
+        assertRejected("{\"version\": 1, \"entries\": [{\"k\": \"a\", \"t\": \"i\", \"v\": \"many\"}]}");
+        assertRejected("{\"version\": 1, \"entries\": [{\"k\": \"a\", \"t\": \"b\", \"v\": \"yes\"}]}");
+        assertRejected("{\"version\": 1, \"entries\": [{\"k\": \"a\", \"t\": \"ss\", \"v\": \"a\"}]}");
+    }
+}
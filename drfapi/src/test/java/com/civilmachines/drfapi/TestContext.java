@@ -0,0 +1,41 @@
+package com.civilmachines.drfapi;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link Context} for local unit tests and benchmarks that hands out
+ * {@link InMemorySharedPreferences} instead of touching the file system.
+ */
+public class TestContext extends ContextWrapper {
+
+    private final Map<String, SharedPreferences> preferences = new HashMap<>();
+
+    public TestContext() {
+        super(null);
+    }
+
+    @Override
+    public synchronized SharedPreferences getSharedPreferences(String name, int mode) {
+        SharedPreferences pref = preferences.get(name);
+        if (pref == null) {
+            pref = new InMemorySharedPreferences();
+            preferences.put(name, pref);
+        }
+        return pref;
+    }
+
+    @Override
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    @Override
+    public String getPackageName() {
+        return "com.civilmachines.drfapi.test";
+    }
+}
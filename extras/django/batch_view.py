@@ -0,0 +1,95 @@
+"""
+Reference batch endpoint for ``DjangoBatchQueue`` / ``DjangoBatchRequest``.
+
+Accepts a list of requests and runs each one through the URL resolver of the
+project, within a single HTTP round trip::
+
+    [{"method": "PATCH", "url": "/api/users/1/", "headers": {...}, "body": {...}}, ...]
+
+and responds with one entry per request, in the same order::
+
+    [{"status": 200, "headers": {...}, "body": {...}}, ...]
+
+Every sub request is made with the credentials of the batch request. Add it to
+``urls.py``::
+
+    from batch_view import BatchView
+
+    urlpatterns = [
+        ...
+        path('api/batch/', BatchView.as_view()),
+    ]
+
+This is meant for local testing and as a starting point; review throttling,
+transactions and permissions before using it in production.
+"""
+import json
+from urllib.parse import urlsplit
+
+from django.http import HttpRequest, QueryDict
+from django.urls import Resolver404, resolve
+from rest_framework import status
+from rest_framework.response import Response
+from rest_framework.views import APIView
+
+MAX_BATCH_SIZE = 50
+
+# Keys of the batch request's META passed on to every sub request
+FORWARDED_META = (
+    'HTTP_AUTHORIZATION', 'HTTP_HOST', 'REMOTE_ADDR', 'SERVER_NAME',
+    'SERVER_PORT', 'SERVER_PROTOCOL', 'wsgi.url_scheme',
+)
+
+
+class BatchView(APIView):
+
+    def post(self, request):
+        items = request.data
+        if not isinstance(items, list):
+            return Response({'detail': 'Expected a list of requests.'},
+                            status=status.HTTP_400_BAD_REQUEST)
+        if len(items) > MAX_BATCH_SIZE:
+            return Response({'detail': 'A batch can contain at most {} requests.'.format(MAX_BATCH_SIZE)},
+                            status=status.HTTP_400_BAD_REQUEST)
+
+        return Response([self.perform(request, item) for item in items])
+
+    def perform(self, request, item):
+        parts = urlsplit(item.get('url', ''))
+        try:
+            match = resolve(parts.path)
+        except Resolver404:
+            return {'status': 404, 'headers': {}, 'body': {'detail': 'Not found.'}}
+
+        sub_request = HttpRequest()
+        sub_request.method = str(item.get('method', 'GET')).upper()
+        sub_request.path = sub_request.path_info = parts.path
+        sub_request.GET = QueryDict(parts.query)
+        sub_request.META = {key: value for key, value in request.META.items() if key in FORWARDED_META}
+        for name, value in (item.get('headers') or {}).items():
+            sub_request.META['HTTP_' + name.upper().replace('-', '_')] = value
+
+        body = item.get('body')
+        if body is not None:
+            raw = json.dumps(body).encode('utf-8')
+            sub_request._body = raw
+            sub_request.META['CONTENT_TYPE'] = 'application/json'
+            sub_request.META['CONTENT_LENGTH'] = str(len(raw))
+
+        # Sub requests are authenticated through the batch request
+        sub_request._dont_enforce_csrf_checks = True
+
+        response = match.func(sub_request, *match.args, **match.kwargs)
+        if hasattr(response, 'render'):
+            response.render()
+
+        content = response.content.decode(response.charset or 'utf-8')
+        if response.get('Content-Type', '').startswith('application/json') and content:
+            content = json.loads(content)
+
+        return {
+            'status': response.status_code,
+            'headers': dict(response.items()),
+            # An empty list or object is a valid body, only a missing one is null
+            'body': content if content != '' else None,
+        }